@@ -0,0 +1,223 @@
+package benchmark;
+
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.List;
+
+/**
+ * @author Richard Luong
+ * Bridge from the benchmarks to the generator. JMH won't generate benchmarks for classes in the default package and
+ * classes in the default package can't be imported, so the benchmarks call the public API through MethodHandles
+ * looked up once. The handles are static final so the JIT treats them as constants and inlines through them, which
+ * keeps the cost of the bridge out of the measurements.
+ */
+final class Api {
+    private static final MethodHandle CREATE_TOKENS;
+    private static final MethodHandle IS_VALID_EXPR;
+    private static final MethodHandle VALIDATE;
+    private static final MethodHandle CREATE_PARSE_TREE;
+    private static final MethodHandle GENERATE_TRUTH_TABLE;
+    private static final MethodHandle WRITE_TRUTH_TABLE;
+    private static final MethodHandle EVAL_RESULTS;
+    private static final MethodHandle EVAL_RESULTS_SHORT_CIRCUIT;
+    private static final MethodHandle GET_ROOT;
+    private static final MethodHandle GET_NUM_VARIABLES;
+    private static final MethodHandle EVAL_TREE;
+    private static final MethodHandle GET_COMPILED_EXPR;
+    private static final MethodHandle COMPILED_EVAL;
+    private static final MethodHandle FOR_TREE;
+    private static final MethodHandle GENERATED_EVAL;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            Class<?> parser = Class.forName("Parser");
+            Class<?> tree = Class.forName("ParseTreeRoot");
+            Class<?> node = Class.forName("ParseTreeNode");
+            Class<?> compiledExpr = Class.forName("CompiledExpr");
+            Class<?> methodHandleExpr = Class.forName("MethodHandleExpr");
+            Class<?> tokenList = Class.forName("TokenList");
+            Class<?> status = Class.forName("ValidExprStatus");
+            Class<?> validationResult = Class.forName("ValidationResult");
+            Object instance = parser.getMethod("getInstance").invoke(null);
+
+            CREATE_TOKENS = lookup.findVirtual(parser, "createTokensFromInput",
+                    MethodType.methodType(tokenList, String.class)).bindTo(instance)
+                    .asType(MethodType.methodType(List.class, String.class));
+            IS_VALID_EXPR = lookup.findVirtual(parser, "isValidExpr",
+                    MethodType.methodType(status, List.class)).bindTo(instance)
+                    .asType(MethodType.methodType(Object.class, List.class));
+            VALIDATE = lookup.findVirtual(parser, "validate",
+                    MethodType.methodType(validationResult, String.class)).bindTo(instance)
+                    .asType(MethodType.methodType(Object.class, String.class));
+            CREATE_PARSE_TREE = lookup.findVirtual(parser, "createParseTree",
+                    MethodType.methodType(tree, List.class)).bindTo(instance)
+                    .asType(MethodType.methodType(Object.class, List.class));
+            GENERATE_TRUTH_TABLE = lookup.findVirtual(tree, "generateTruthTable",
+                    MethodType.methodType(void.class))
+                    .asType(MethodType.methodType(void.class, Object.class));
+            WRITE_TRUTH_TABLE = lookup.findVirtual(tree, "writeTruthTable",
+                    MethodType.methodType(void.class, OutputStream.class))
+                    .asType(MethodType.methodType(void.class, Object.class, OutputStream.class));
+            GET_ROOT = lookup.findVirtual(tree, "getRoot", MethodType.methodType(node))
+                    .asType(MethodType.methodType(Object.class, Object.class));
+            GET_NUM_VARIABLES = lookup.findVirtual(tree, "getNumVariables", MethodType.methodType(int.class))
+                    .asType(MethodType.methodType(int.class, Object.class));
+            EVAL_TREE = lookup.findVirtual(tree, "evalTree",
+                    MethodType.methodType(boolean.class, node, boolean[].class, List.class))
+                    .asType(MethodType.methodType(boolean.class, Object.class, Object.class, boolean[].class,
+                            List.class));
+            GET_COMPILED_EXPR = lookup.findVirtual(tree, "getCompiledExpr", MethodType.methodType(compiledExpr))
+                    .asType(MethodType.methodType(Object.class, Object.class));
+            COMPILED_EVAL = lookup.findVirtual(compiledExpr, "eval", MethodType.methodType(boolean.class, long.class))
+                    .asType(MethodType.methodType(boolean.class, Object.class, long.class));
+            EVAL_RESULTS = lookup.findVirtual(compiledExpr, "evalResults", MethodType.methodType(long[].class))
+                    .asType(MethodType.methodType(long[].class, Object.class));
+            EVAL_RESULTS_SHORT_CIRCUIT = lookup.findVirtual(compiledExpr, "evalResultsShortCircuit",
+                    MethodType.methodType(long[].class)).asType(MethodType.methodType(long[].class, Object.class));
+            FOR_TREE = lookup.findStatic(methodHandleExpr, "forTree", MethodType.methodType(methodHandleExpr, tree))
+                    .asType(MethodType.methodType(Object.class, Object.class));
+            GENERATED_EVAL = lookup.findVirtual(methodHandleExpr, "eval",
+                    MethodType.methodType(boolean.class, long.class))
+                    .asType(MethodType.methodType(boolean.class, Object.class, long.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    // Class only contains static helper methods so should not be instantiated
+    private Api() {}
+
+    static List<?> createTokensFromInput(String inputStr) {
+        try {
+            return (List<?>) CREATE_TOKENS.invokeExact(inputStr);
+        } catch (Throwable e) {
+            throw propagate(e);
+        }
+    }
+
+    static Object isValidExpr(List<?> tokens) {
+        try {
+            return (Object) IS_VALID_EXPR.invokeExact(tokens);
+        } catch (Throwable e) {
+            throw propagate(e);
+        }
+    }
+
+    static Object validate(String inputStr) {
+        try {
+            return (Object) VALIDATE.invokeExact(inputStr);
+        } catch (Throwable e) {
+            throw propagate(e);
+        }
+    }
+
+    static Object createParseTree(List<?> tokens) {
+        try {
+            return (Object) CREATE_PARSE_TREE.invokeExact(tokens);
+        } catch (Throwable e) {
+            throw propagate(e);
+        }
+    }
+
+    static void generateTruthTable(Object tree) {
+        try {
+            GENERATE_TRUTH_TABLE.invokeExact(tree);
+        } catch (Throwable e) {
+            throw propagate(e);
+        }
+    }
+
+    static void writeTruthTable(Object tree, OutputStream out) {
+        try {
+            WRITE_TRUTH_TABLE.invokeExact(tree, out);
+        } catch (Throwable e) {
+            throw propagate(e);
+        }
+    }
+
+    static Object getRoot(Object tree) {
+        try {
+            return (Object) GET_ROOT.invokeExact(tree);
+        } catch (Throwable e) {
+            throw propagate(e);
+        }
+    }
+
+    static int getNumVariables(Object tree) {
+        try {
+            return (int) GET_NUM_VARIABLES.invokeExact(tree);
+        } catch (Throwable e) {
+            throw propagate(e);
+        }
+    }
+
+    static boolean evalTree(Object tree, Object node, boolean[] valMappings, List<String> currRow) {
+        try {
+            return (boolean) EVAL_TREE.invokeExact(tree, node, valMappings, currRow);
+        } catch (Throwable e) {
+            throw propagate(e);
+        }
+    }
+
+    static Object getCompiledExpr(Object tree) {
+        try {
+            return (Object) GET_COMPILED_EXPR.invokeExact(tree);
+        } catch (Throwable e) {
+            throw propagate(e);
+        }
+    }
+
+    static boolean evalCompiled(Object compiledExpr, long assignment) {
+        try {
+            return (boolean) COMPILED_EVAL.invokeExact(compiledExpr, assignment);
+        } catch (Throwable e) {
+            throw propagate(e);
+        }
+    }
+
+    static long[] evalResults(Object compiledExpr) {
+        try {
+            return (long[]) EVAL_RESULTS.invokeExact(compiledExpr);
+        } catch (Throwable e) {
+            throw propagate(e);
+        }
+    }
+
+    static long[] evalResultsShortCircuit(Object compiledExpr) {
+        try {
+            return (long[]) EVAL_RESULTS_SHORT_CIRCUIT.invokeExact(compiledExpr);
+        } catch (Throwable e) {
+            throw propagate(e);
+        }
+    }
+
+    static Object methodHandleExprForTree(Object tree) {
+        try {
+            return (Object) FOR_TREE.invokeExact(tree);
+        } catch (Throwable e) {
+            throw propagate(e);
+        }
+    }
+
+    static boolean evalGenerated(Object methodHandleExpr, long assignment) {
+        try {
+            return (boolean) GENERATED_EVAL.invokeExact(methodHandleExpr, assignment);
+        } catch (Throwable e) {
+            throw propagate(e);
+        }
+    }
+
+    /**
+     * Rethrow whatever the generator threw, wrapping checked exceptions since none of the benchmarks expect one
+     * @param e Exception thrown through a handle
+     * @return never returns, declared so callers can write throw propagate(e)
+     */
+    private static RuntimeException propagate(Throwable e) {
+        if (e instanceof RuntimeException) throw (RuntimeException) e;
+        if (e instanceof Error) throw (Error) e;
+        throw new IllegalStateException(e);
+    }
+}
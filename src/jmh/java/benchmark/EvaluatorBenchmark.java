@@ -0,0 +1,79 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.LinkedList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Richard Luong
+ * Benchmark comparing the recursive evalTree against the compiled postfix program and the generated MethodHandle
+ * evaluator. Each benchmark evaluates every row of the truth table one row at a time and counts the true rows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EvaluatorBenchmark {
+    @Param({"4", "8", "12"})
+    public int numVars;
+
+    // Number of operands in the expression
+    @Param({"16", "64"})
+    public int length;
+
+    // How deep the parentheses are nested
+    @Param({"0", "8"})
+    public int depth;
+
+    private Object tree;
+    private Object root;
+    private Object compiled;
+    private Object generated;
+    private int treeVars;
+    private long rows;
+
+    @Setup
+    public void setup() {
+        String input = ExprGenerator.generate(numVars, length, depth, 42);
+        tree = Api.createParseTree(Api.createTokensFromInput(input));
+        root = Api.getRoot(tree);
+        compiled = Api.getCompiledExpr(tree);
+        generated = Api.methodHandleExprForTree(tree);
+        treeVars = Api.getNumVariables(tree);
+        rows = 1L << treeVars;
+    }
+
+    @Benchmark
+    public long evalTree() {
+        long count = 0;
+        boolean[] valMappings = new boolean[treeVars];
+        for (long row = 0; row < rows; row++) {
+            for (int i = 0; i < treeVars; i++) {
+                valMappings[i] = ((row >>> (treeVars - 1 - i)) & 1) != 0;
+            }
+            if (Api.evalTree(tree, root, valMappings, new LinkedList<String>())) count++;
+        }
+        return count;
+    }
+
+    @Benchmark
+    public long compiledExpr() {
+        long count = 0;
+        for (long row = 0; row < rows; row++) {
+            if (Api.evalCompiled(compiled, row)) count++;
+        }
+        return count;
+    }
+
+    @Benchmark
+    public long methodHandleExpr() {
+        long count = 0;
+        for (long row = 0; row < rows; row++) {
+            if (Api.evalGenerated(generated, row)) count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,47 @@
+package benchmark;
+
+import java.util.Random;
+
+/**
+ * @author Richard Luong
+ * Creates the expressions used by the benchmarks. The same parameters always give the same expression so results can
+ * be compared between runs.
+ */
+final class ExprGenerator {
+    private static final char[] CONNECTIVES = {'^', 'V', '>', '='};
+
+    // Class only contains static helper methods so should not be instantiated
+    private ExprGenerator() {}
+
+    /**
+     * Create a random but repeatable expression
+     * @param numVars Number of distinct variables, named v0, v1, ... The variables are used in turn so all of them
+     *                appear as long as there are at least as many operands
+     * @param length Number of operands in the expression
+     * @param depth How deep the parentheses are nested, limited to one less than the number of operands
+     * @param seed Seed of the choice of connectives and negations
+     * @return the expression as it would be typed in by the user
+     */
+    static String generate(int numVars, int length, int depth, long seed) {
+        Random random = new Random(seed);
+        StringBuilder expr = new StringBuilder();
+        int nesting = Math.max(0, Math.min(depth, length - 1));
+        // The first operand is the innermost of the nested groups, every group after it is closed by one more operand
+        for (int i = 0; i < nesting; i++) {
+            expr.append('(');
+        }
+        for (int i = 0; i < length; i++) {
+            if (i > 0) {
+                expr.append(CONNECTIVES[random.nextInt(CONNECTIVES.length)]);
+            }
+            if (random.nextInt(4) == 0) {
+                expr.append('~');
+            }
+            expr.append('v').append(i % numVars);
+            if (i > 0 && i <= nesting) {
+                expr.append(')');
+            }
+        }
+        return expr.toString();
+    }
+}
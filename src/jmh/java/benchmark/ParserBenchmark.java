@@ -0,0 +1,59 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Richard Luong
+ * Benchmarks of turning an expression into a parse tree: tokenizing, validating and building the tree, each
+ * measured on its own.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParserBenchmark {
+    @Param({"4", "16", "62"})
+    public int numVars;
+
+    // Number of operands in the expression
+    @Param({"16", "256", "4096"})
+    public int length;
+
+    // How deep the parentheses are nested
+    @Param({"0", "8", "64"})
+    public int depth;
+
+    private String input;
+    private List<?> tokens;
+
+    @Setup
+    public void setup() {
+        input = ExprGenerator.generate(numVars, length, depth, 42);
+        tokens = Api.createTokensFromInput(input);
+    }
+
+    @Benchmark
+    public List<?> createTokensFromInput() {
+        return Api.createTokensFromInput(input);
+    }
+
+    @Benchmark
+    public Object isValidExpr() {
+        return Api.isValidExpr(tokens);
+    }
+
+    @Benchmark
+    public Object validate() {
+        return Api.validate(input);
+    }
+
+    @Benchmark
+    public Object createParseTree() {
+        return Api.createParseTree(tokens);
+    }
+}
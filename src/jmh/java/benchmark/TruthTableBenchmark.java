@@ -0,0 +1,83 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Richard Luong
+ * Benchmarks of the work done on a parse tree: generating the whole truth table, only the result column with and
+ * without short circuiting, and rendering the table as text the same way printTruthTable() does. The rendered text
+ * is thrown away so only the cost of creating it is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TruthTableBenchmark {
+    // Decides the number of rows, 2^numVars
+    @Param({"4", "8", "12"})
+    public int numVars;
+
+    // Number of operands in the expression, which decides the number of columns
+    @Param({"16", "64"})
+    public int length;
+
+    // How deep the parentheses are nested
+    @Param({"0", "8"})
+    public int depth;
+
+    private Object tree;
+    private Object compiled;
+    private CountingOutputStream out;
+
+    @Setup
+    public void setup() {
+        String input = ExprGenerator.generate(numVars, length, depth, 42);
+        tree = Api.createParseTree(Api.createTokensFromInput(input));
+        compiled = Api.getCompiledExpr(tree);
+        out = new CountingOutputStream();
+    }
+
+    @Benchmark
+    public Object generateTruthTable() {
+        Api.generateTruthTable(tree);
+        return tree;
+    }
+
+    // ParseTreeRoot keeps the result column once it is created so the compiled expression is used directly
+    @Benchmark
+    public long[] evalResults() {
+        return Api.evalResults(compiled);
+    }
+
+    @Benchmark
+    public long[] evalResultsShortCircuit() {
+        return Api.evalResultsShortCircuit(compiled);
+    }
+
+    @Benchmark
+    public long printTruthTable() {
+        out.count = 0;
+        Api.writeTruthTable(tree, out);
+        return out.count;
+    }
+
+    // Stream that only counts the bytes written to it
+    private static final class CountingOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
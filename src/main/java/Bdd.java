@@ -0,0 +1,434 @@
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @author Richard Luong
+ * Reduced ordered binary decision diagrams of expressions. Every node tests one variable and points to the node for
+ * when it is false (low) and when it is true (high), with the variables always tested in the same order. Nodes are
+ * kept unique through a hash table so two expressions have the same node exactly when they are equivalent, which
+ * makes checking equivalence, tautology and contradiction a comparison of node ids. Counting models takes time
+ * proportional to the size of the diagram rather than the number of rows of the truth table.
+ * Nodes are ints indexing primitive arrays, with 0 being false and 1 being true. Results of applying operators are
+ * kept in a fixed size cache that overwrites old entries.
+ * The order the variables are tested in can be given to the constructor. The size of the diagram can change a lot
+ * depending on the order, and the order the variables first appear in the expression is a good default.
+ */
+public class Bdd {
+    public static final int FALSE = 0;
+    public static final int TRUE = 1;
+
+    private static final int CACHE_SIZE = 1 << 16;
+    // Operator codes of the computed cache, NOT is kept apart from the connectives
+    private static final int OP_NOT = 0;
+    private static final int OP_AND = 1;
+    private static final int OP_OR = 2;
+    private static final int OP_IMPL = 3;
+    private static final int OP_BICOND = 4;
+
+    private final int numVars;
+    // Variable tested at each level and the level of each variable
+    private final int[] levelVars;
+    private final int[] varLevels;
+
+    // Nodes, where the terminals are at level numVars
+    private int[] levels;
+    private int[] lows;
+    private int[] highs;
+    private int numNodes;
+
+    // Unique table chaining nodes with the same hash through next
+    private int[] buckets;
+    private int[] next;
+
+    // Computed cache, an entry is empty when its op is -1
+    private final int[] cacheOps = new int[CACHE_SIZE];
+    private final int[] cacheF = new int[CACHE_SIZE];
+    private final int[] cacheG = new int[CACHE_SIZE];
+    private final int[] cacheResults = new int[CACHE_SIZE];
+
+    /**
+     * Constructor: Variables are tested in the order of their index, which for a parse tree is the order they first
+     * appear in the expression
+     * @param numVars Number of variables
+     */
+    public Bdd(int numVars) {
+        this(identityOrder(numVars));
+    }
+
+    /**
+     * Constructor
+     * @param order Index of each variable in the order they are tested, from the root of the diagram down. Must hold
+     *              every variable from 0 to order.length - 1 exactly once
+     */
+    public Bdd(int[] order) {
+        this.numVars = order.length;
+        this.levelVars = order.clone();
+        this.varLevels = new int[numVars];
+        Arrays.fill(varLevels, -1);
+        for (int level = 0; level < numVars; level++) {
+            int var = order[level];
+            if (var < 0 || var >= numVars || varLevels[var] != -1)
+                throw new IllegalArgumentException("Order must hold each variable exactly once");
+            varLevels[var] = level;
+        }
+        levels = new int[1024];
+        lows = new int[1024];
+        highs = new int[1024];
+        next = new int[1024];
+        buckets = new int[1024];
+        Arrays.fill(buckets, -1);
+        Arrays.fill(cacheOps, -1);
+        // Terminals
+        for (int terminal = FALSE; terminal <= TRUE; terminal++) {
+            levels[terminal] = numVars;
+            lows[terminal] = terminal;
+            highs[terminal] = terminal;
+        }
+        numNodes = 2;
+    }
+
+    private static int[] identityOrder(int numVars) {
+        int[] order = new int[numVars];
+        for (int i = 0; i < numVars; i++) {
+            order[i] = i;
+        }
+        return order;
+    }
+
+    /**
+     * Check if two expressions are equivalent, testing the variables in the order they first appear in either
+     * expression. Variables are matched by name so the expressions don't need to have the same variables
+     * @param first Parse tree of the first expression
+     * @param second Parse tree of the second expression
+     * @return a QueryResult holding an assignment of the variables of both expressions where they differ if they
+     * are not equivalent. The variables of the first expression come first followed by any only in the second
+     */
+    public static QueryResult areEquivalent(ParseTreeRoot first, ParseTreeRoot second) {
+        List<String> names = ParseTreeRoot.unionVariables(first, second).getNames();
+        Bdd bdd = new Bdd(names.size());
+        int f = bdd.build(first, names);
+        int g = bdd.build(second, names);
+        if (f == g) return new QueryResult(true, null, names);
+        return new QueryResult(false, bdd.anySat(bdd.apply(Token.BICOND, f, g), false), names);
+    }
+
+    /**
+     * Build the diagram of an expression whose variables are variables 0 to tree.getNumVariables() - 1
+     * @param tree Parse tree of the expression
+     * @return the node of the expression
+     */
+    public int build(ParseTreeRoot tree) {
+        int[] varMap = identityOrder(tree.getNumVariables());
+        return build(tree.getCompiledExpr(), varMap);
+    }
+
+    /**
+     * Build the diagram of an expression, matching its variables to the variables of the diagram by name
+     * @param tree Parse tree of the expression
+     * @param names Name of each variable of the diagram, which must include every variable of the expression
+     * @return the node of the expression
+     */
+    public int build(ParseTreeRoot tree, List<String> names) {
+        List<String> treeVars = tree.getVariables();
+        int[] varMap = new int[treeVars.size()];
+        for (int i = 0; i < varMap.length; i++) {
+            varMap[i] = names.indexOf(treeVars.get(i));
+            if (varMap[i] < 0) throw new IllegalArgumentException("Unknown variable " + treeVars.get(i));
+        }
+        return build(tree.getCompiledExpr(), varMap);
+    }
+
+    /**
+     * Build the diagram of a compiled expression by running its postfix program on a stack of nodes, so a shared
+     * sub expression is only built once
+     * @param expr Compiled expression
+     * @param varMap Variable of the diagram for each variable slot of the expression
+     * @return the node of the expression
+     */
+    public int build(CompiledExpr expr, int[] varMap) {
+        int[] code = expr.getCode();
+        int[] slots = new int[expr.getNumVars() + expr.getNumOperators()];
+        for (int i = 0; i < expr.getNumVars(); i++) {
+            slots[i] = var(varMap[i]);
+        }
+        int[] stack = new int[expr.getMaxStackSize()];
+        int top = -1;
+        int currSlot = expr.getNumVars();
+        for (int instruction: code) {
+            int opcode = instruction & CompiledExpr.OPCODE_MASK;
+            if (opcode == CompiledExpr.LOAD) {
+                stack[++top] = slots[instruction >>> CompiledExpr.OPCODE_BITS];
+                continue;
+            } else if (opcode == CompiledExpr.NOT) {
+                stack[top] = not(stack[top]);
+            } else {
+                int rightVal = stack[top--];
+                stack[top] = applyOp(opcode - CompiledExpr.AND + OP_AND, stack[top], rightVal);
+            }
+            slots[currSlot++] = stack[top];
+        }
+        return stack[0];
+    }
+
+    /**
+     * @param var Index of a variable
+     * @return the node that is true exactly when the variable is true
+     */
+    public int var(int var) {
+        return mk(varLevels[var], FALSE, TRUE);
+    }
+
+    /**
+     * @param f Node
+     * @return the node of the negation of f
+     */
+    public int not(int f) {
+        if (f <= TRUE) return f ^ 1;
+        int slot = cacheSlot(OP_NOT, f, 0);
+        if (cacheOps[slot] == OP_NOT && cacheF[slot] == f) return cacheResults[slot];
+        int result = mk(levels[f], not(lows[f]), not(highs[f]));
+        store(slot, OP_NOT, f, 0, result);
+        return result;
+    }
+
+    /**
+     * Apply an operator to two nodes
+     * @param operator Operator to apply, the LHS is ignored for NOT
+     * @param f Node of the LHS
+     * @param g Node of the RHS
+     * @return the node of the result
+     */
+    public int apply(Token operator, int f, int g) {
+        switch (operator) {
+            case NOT: return not(g);
+            case AND: return applyOp(OP_AND, f, g);
+            case OR: return applyOp(OP_OR, f, g);
+            case IMPL: return applyOp(OP_IMPL, f, g);
+            case BICOND: return applyOp(OP_BICOND, f, g);
+            // This should never be reached unless given an unknown symbol which shouldn't be possible
+            default: throw new IllegalArgumentException("Unknown operator " + operator);
+        }
+    }
+
+    /**
+     * Helper method for apply: Shannon expansion on the variable tested first by either node
+     * @param op Operator code
+     * @param f Node of the LHS
+     * @param g Node of the RHS
+     * @return the node of the result
+     */
+    private int applyOp(int op, int f, int g) {
+        switch (op) {
+            case OP_AND:
+                if (f == FALSE || g == FALSE) return FALSE;
+                if (f == TRUE || f == g) return g;
+                if (g == TRUE) return f;
+                break;
+            case OP_OR:
+                if (f == TRUE || g == TRUE) return TRUE;
+                if (f == FALSE || f == g) return g;
+                if (g == FALSE) return f;
+                break;
+            case OP_IMPL:
+                if (f == FALSE || g == TRUE || f == g) return TRUE;
+                if (f == TRUE) return g;
+                if (g == FALSE) return not(f);
+                break;
+            default:
+                if (f == g) return TRUE;
+                if (f == TRUE) return g;
+                if (g == TRUE) return f;
+                if (f == FALSE) return not(g);
+                if (g == FALSE) return not(f);
+                break;
+        }
+        // Order the operands of commutative operators so both orders share a cache entry
+        if (op != OP_IMPL && f > g) {
+            int tmp = f;
+            f = g;
+            g = tmp;
+        }
+        int slot = cacheSlot(op, f, g);
+        if (cacheOps[slot] == op && cacheF[slot] == f && cacheG[slot] == g) return cacheResults[slot];
+        int level = Math.min(levels[f], levels[g]);
+        int fLow = (levels[f] == level) ? lows[f] : f;
+        int fHigh = (levels[f] == level) ? highs[f] : f;
+        int gLow = (levels[g] == level) ? lows[g] : g;
+        int gHigh = (levels[g] == level) ? highs[g] : g;
+        int result = mk(level, applyOp(op, fLow, gLow), applyOp(op, fHigh, gHigh));
+        store(slot, op, f, g, result);
+        return result;
+    }
+
+    /**
+     * Get the unique node testing a level, creating it if it doesn't exist. A test where both branches are the same
+     * is redundant so the branch is returned instead
+     * @param level Level of the variable tested
+     * @param low Node for when the variable is false
+     * @param high Node for when the variable is true
+     * @return the node
+     */
+    private int mk(int level, int low, int high) {
+        if (low == high) return low;
+        int bucket = hash(level, low, high) & (buckets.length - 1);
+        for (int n = buckets[bucket]; n != -1; n = next[n]) {
+            if (levels[n] == level && lows[n] == low && highs[n] == high) return n;
+        }
+        if (numNodes == levels.length) {
+            grow();
+            bucket = hash(level, low, high) & (buckets.length - 1);
+        }
+        int n = numNodes++;
+        levels[n] = level;
+        lows[n] = low;
+        highs[n] = high;
+        next[n] = buckets[bucket];
+        buckets[bucket] = n;
+        return n;
+    }
+
+    /**
+     * Helper method for mk: Double the node arrays and the unique table, putting every node back in its bucket
+     */
+    private void grow() {
+        int capacity = levels.length * 2;
+        levels = Arrays.copyOf(levels, capacity);
+        lows = Arrays.copyOf(lows, capacity);
+        highs = Arrays.copyOf(highs, capacity);
+        next = Arrays.copyOf(next, capacity);
+        buckets = new int[capacity];
+        Arrays.fill(buckets, -1);
+        for (int n = 2; n < numNodes; n++) {
+            int bucket = hash(levels[n], lows[n], highs[n]) & (buckets.length - 1);
+            next[n] = buckets[bucket];
+            buckets[bucket] = n;
+        }
+    }
+
+    private static int hash(int a, int b, int c) {
+        int h = a * 0x9E3779B1 + b;
+        h = h * 0x9E3779B1 + c;
+        return h ^ (h >>> 16);
+    }
+
+    private static int cacheSlot(int op, int f, int g) {
+        return hash(op, f, g) & (CACHE_SIZE - 1);
+    }
+
+    private void store(int slot, int op, int f, int g, int result) {
+        cacheOps[slot] = op;
+        cacheF[slot] = f;
+        cacheG[slot] = g;
+        cacheResults[slot] = result;
+    }
+
+    /**
+     * @param f Node
+     * @return true if the expression of the node is true for every assignment
+     */
+    public boolean isTautology(int f) {
+        return f == TRUE;
+    }
+
+    /**
+     * @param f Node
+     * @return true if the expression of the node is false for every assignment
+     */
+    public boolean isContradiction(int f) {
+        return f == FALSE;
+    }
+
+    /**
+     * Count the assignments of every variable of the diagram that make a node true
+     * @param f Node
+     * @return number of satisfying assignments
+     */
+    public BigInteger countModels(int f) {
+        BigInteger[] counts = new BigInteger[numNodes];
+        return countFrom(f, counts).shiftLeft(levels[f]);
+    }
+
+    /**
+     * Helper method for countModels: Count the assignments of the variables from the level of a node down
+     * @param f Node
+     * @param counts Count of each node already visited
+     * @return number of satisfying assignments of the variables from the level of f
+     */
+    private BigInteger countFrom(int f, BigInteger[] counts) {
+        if (f <= TRUE) return (f == TRUE) ? BigInteger.ONE : BigInteger.ZERO;
+        if (counts[f] != null) return counts[f];
+        // Every level skipped on the way to a child doubles its count
+        BigInteger low = countFrom(lows[f], counts).shiftLeft(levels[lows[f]] - levels[f] - 1);
+        BigInteger high = countFrom(highs[f], counts).shiftLeft(levels[highs[f]] - levels[f] - 1);
+        counts[f] = low.add(high);
+        return counts[f];
+    }
+
+    /**
+     * Find an assignment that makes a node true or false
+     * @param f Node
+     * @param value Value of the node to look for
+     * @return the value of each variable in the assignment, with variables that don't matter set to false, or null if
+     * there isn't one
+     */
+    public boolean[] anySat(int f, boolean value) {
+        int target = value ? TRUE : FALSE;
+        if (f <= TRUE && f != target) return null;
+        boolean[] model = new boolean[numVars];
+        while (f > TRUE) {
+            // In a reduced diagram every node that isn't a terminal can reach both terminals, so the low branch is
+            // only wrong when it is the other terminal
+            int low = lows[f];
+            if (low == target || low > TRUE) {
+                f = low;
+            } else {
+                model[levelVars[levels[f]]] = true;
+                f = highs[f];
+            }
+        }
+        return model;
+    }
+
+    /**
+     * Count the nodes reachable from a node including the terminals
+     * @param f Node
+     * @return size of the diagram of the node
+     */
+    public int size(int f) {
+        boolean[] visited = new boolean[numNodes];
+        int[] stack = new int[numNodes];
+        int top = 0;
+        int size = 0;
+        stack[top++] = f;
+        visited[f] = true;
+        while (top > 0) {
+            int n = stack[--top];
+            size++;
+            if (n <= TRUE) continue;
+            if (!visited[lows[n]]) {
+                visited[lows[n]] = true;
+                stack[top++] = lows[n];
+            }
+            if (!visited[highs[n]]) {
+                visited[highs[n]] = true;
+                stack[top++] = highs[n];
+            }
+        }
+        return size;
+    }
+
+    /**
+     * @return Number of variables of the diagram
+     */
+    public int getNumVars() {
+        return numVars;
+    }
+
+    /**
+     * @return Number of nodes created so far including the terminals
+     */
+    public int getNumNodes() {
+        return numNodes;
+    }
+}
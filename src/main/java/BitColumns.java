@@ -0,0 +1,68 @@
+/**
+ * @author Richard Luong
+ * Helper methods for working with bit columns of a truth table. A bit column stores the truth value of a
+ * variable or sub expression for every row of the truth table, where bit i of the column (bit i % 64 of word i / 64)
+ * is the truth value in row i. This allows an operator to be applied to 64 rows at a time with a single bitwise
+ * operation.
+ */
+public final class BitColumns {
+    // Bit patterns for the variables that change value within a single word of 64 rows
+    private static final long[] WORD_PATTERNS = {
+            0xAAAAAAAAAAAAAAAAL, 0xCCCCCCCCCCCCCCCCL, 0xF0F0F0F0F0F0F0F0L,
+            0xFF00FF00FF00FF00L, 0xFFFF0000FFFF0000L, 0xFFFFFFFF00000000L
+    };
+
+    // Class only contains static helper methods so should not be instantiated
+    private BitColumns() {}
+
+    /**
+     * Get the number of 64 bit words needed to hold a column with the given number of rows
+     * @param rows Number of rows in the truth table
+     * @return number of words
+     * @throws IllegalArgumentException if the column would have more words than an array can hold
+     */
+    public static int wordCount(long rows) {
+        long words = (rows + 63) >>> 6;
+        if (words > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("A column of " + rows + " rows has too many words to store");
+        return (int) words;
+    }
+
+    /**
+     * Get the mask of the rows that are in use in the last word of a column. Bits past the final row are kept clear so
+     * that whole words can be compared and counted
+     * @param rows Number of rows in the truth table
+     * @return a mask with a set bit for every row in the last word
+     */
+    public static long tailMask(long rows) {
+        int usedBits = (int) (rows & 63);
+        return (usedBits == 0) ? -1L : (1L << usedBits) - 1;
+    }
+
+    /**
+     * Get a single word of the column of a variable without creating the whole column
+     * @param varIndex Position of the variable in the header of the truth table
+     * @param numVars Number of variables in the expression
+     * @param word Index of the word in the column
+     * @return the 64 values of the variable in that word. Bits past the last row of the table are undefined
+     */
+    public static long variableWord(int varIndex, int numVars, long word) {
+        // The last variable is the lowest bit of the row number, the first variable is the highest
+        int bit = numVars - 1 - varIndex;
+        if (bit < 6) {
+            return WORD_PATTERNS[bit];
+        }
+        // The variable holds the same value for at least one whole word
+        return ((word >>> (bit - 6)) & 1) != 0 ? -1L : 0L;
+    }
+
+    /**
+     * Get the truth value of a row in a column
+     * @param column Bit column
+     * @param row Row in the truth table
+     * @return true or false
+     */
+    public static boolean get(long[] column, long row) {
+        return (column[(int) (row >>> 6)] & (1L << row)) != 0;
+    }
+}
@@ -0,0 +1,179 @@
+import java.util.Arrays;
+
+/**
+ * @author Richard Luong
+ * A formula in conjunctive normal form with every clause stored back to back in a single int array. A literal is
+ * 2 * var for a variable and 2 * var + 1 for its negation, so the negation of a literal is literal ^ 1.
+ * Expressions are converted with the Tseitin encoding: every connective gets a new variable that is constrained to be
+ * equal to it, which keeps the formula linear in the size of the expression instead of the exponential size of
+ * distributing the connectives. Negations don't need a variable since they only flip the literal of their operand.
+ */
+public final class CnfFormula {
+    private int numVars;
+    private final int numInputVars;
+    private int[] literals;
+    private int numLiterals;
+    // Clause i is literals[clauseStarts[i]] up to literals[clauseStarts[i + 1]]
+    private int[] clauseStarts;
+    private int numClauses;
+
+    /**
+     * Constructor: Formula with no clauses
+     * @param numInputVars Number of variables of the original expression, which are variables 0 to numInputVars - 1
+     */
+    CnfFormula(int numInputVars) {
+        this.numVars = numInputVars;
+        this.numInputVars = numInputVars;
+        this.literals = new int[16];
+        this.clauseStarts = new int[16];
+    }
+
+    /**
+     * Encode the expression being equal to a value. The expression is satisfiable if the formula is satisfiable for
+     * true and it is a tautology if the formula is unsatisfiable for false
+     * @param expr Compiled expression, whose variable slots become variables 0 to expr.getNumVars() - 1
+     * @param value Value the expression is constrained to
+     * @return the formula
+     */
+    public static CnfFormula encode(CompiledExpr expr, boolean value) {
+        int numInputVars = expr.getNumVars();
+        CnfFormula cnf = new CnfFormula(numInputVars);
+        int[] code = expr.getCode();
+        // Literal of every variable and operator slot, so shared sub expressions are encoded once
+        int[] slots = new int[numInputVars + expr.getNumOperators()];
+        for (int i = 0; i < numInputVars; i++) {
+            slots[i] = literal(i, false);
+        }
+        int[] stack = new int[expr.getMaxStackSize()];
+        int top = -1;
+        int currSlot = numInputVars;
+        for (int instruction: code) {
+            int opcode = instruction & CompiledExpr.OPCODE_MASK;
+            if (opcode == CompiledExpr.LOAD) {
+                stack[++top] = slots[instruction >>> CompiledExpr.OPCODE_BITS];
+                continue;
+            } else if (opcode == CompiledExpr.NOT) {
+                stack[top] ^= 1;
+            } else {
+                int r = stack[top--];
+                int l = stack[top];
+                int a = literal(cnf.newVar(), false);
+                stack[top] = a;
+                cnf.addGate(opcode, a, l, r);
+            }
+            slots[currSlot++] = stack[top];
+        }
+        cnf.addClause(value ? stack[0] : stack[0] ^ 1);
+        return cnf;
+    }
+
+    /**
+     * Helper method for encode: Add the clauses that make a equal to the connective applied to l and r
+     * @param opcode Opcode of the connective
+     * @param a Literal of the new variable of the connective
+     * @param l Literal of the LHS
+     * @param r Literal of the RHS
+     */
+    private void addGate(int opcode, int a, int l, int r) {
+        int na = a ^ 1, nl = l ^ 1, nr = r ^ 1;
+        switch (opcode) {
+            case CompiledExpr.AND:
+                addClause(na, l);
+                addClause(na, r);
+                addClause(a, nl, nr);
+                break;
+            case CompiledExpr.OR:
+                addClause(na, l, r);
+                addClause(a, nl);
+                addClause(a, nr);
+                break;
+            case CompiledExpr.IMPL:
+                addClause(na, nl, r);
+                addClause(a, l);
+                addClause(a, nr);
+                break;
+            case CompiledExpr.BICOND:
+                addClause(na, nl, r);
+                addClause(na, l, nr);
+                addClause(a, l, r);
+                addClause(a, nl, nr);
+                break;
+            // This should never be reached unless given an unknown opcode which shouldn't be possible
+            default:
+                throw new IllegalArgumentException("Unknown opcode " + opcode);
+        }
+    }
+
+    /**
+     * Create a literal
+     * @param var Variable of the literal
+     * @param negated true for the negation of the variable
+     * @return the literal
+     */
+    public static int literal(int var, boolean negated) {
+        return (var << 1) | (negated ? 1 : 0);
+    }
+
+    /**
+     * @return a new variable that isn't used by any clause yet
+     */
+    int newVar() {
+        return numVars++;
+    }
+
+    /**
+     * Add a clause, which is the disjunction of its literals
+     * @param clause Literals of the clause, which must use variables of the formula
+     */
+    void addClause(int... clause) {
+        if (numClauses + 2 > clauseStarts.length) {
+            clauseStarts = Arrays.copyOf(clauseStarts, clauseStarts.length * 2);
+        }
+        if (numLiterals + clause.length > literals.length) {
+            literals = Arrays.copyOf(literals, Math.max(literals.length * 2, numLiterals + clause.length));
+        }
+        clauseStarts[numClauses] = numLiterals;
+        System.arraycopy(clause, 0, literals, numLiterals, clause.length);
+        numLiterals += clause.length;
+        clauseStarts[++numClauses] = numLiterals;
+    }
+
+    /**
+     * @return Number of variables including the variables added for the connectives
+     */
+    public int getNumVars() {
+        return numVars;
+    }
+
+    /**
+     * @return Number of variables of the original expression
+     */
+    public int getNumInputVars() {
+        return numInputVars;
+    }
+
+    /**
+     * @return Number of clauses
+     */
+    public int getNumClauses() {
+        return numClauses;
+    }
+
+    /**
+     * @param clause Index of the clause
+     * @return a copy of the literals of the clause
+     */
+    public int[] getClause(int clause) {
+        return Arrays.copyOfRange(literals, clauseStarts[clause], clauseStarts[clause + 1]);
+    }
+
+    // Direct access to the clause storage for the solver
+
+    int[] getLiterals() {
+        return literals;
+    }
+
+    int[] getClauseStarts() {
+        return clauseStarts;
+    }
+}
@@ -0,0 +1,581 @@
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * @author Richard Luong
+ * A propositional logic expression compiled from a parse tree into a flat postfix program. Variables are resolved to
+ * slot indexes when the program is compiled so evaluation runs on a primitive stack without recursion or map lookups.
+ * Each instruction holds an opcode in its lowest 3 bits and the slot index of a variable in the remaining bits.
+ * Every operator stores its value in the slot after the variables and any earlier operators, so a sub expression
+ * shared by more than one parent is evaluated once and then loaded from its slot like a variable.
+ */
+public final class CompiledExpr {
+    // Opcodes
+    static final int LOAD = 0;
+    static final int NOT = 1;
+    static final int AND = 2;
+    static final int OR = 3;
+    static final int IMPL = 4;
+    static final int BICOND = 5;
+    static final int OPCODE_BITS = 3;
+    static final int OPCODE_MASK = (1 << OPCODE_BITS) - 1;
+    // Number of words a parallel task evaluates before it is split into smaller tasks
+    private static final int WORDS_PER_TASK = 1024;
+
+    private final int[] code;
+    private final int numVars;
+    private final int numOperators;
+    private final int maxStackSize;
+
+    /**
+     * Constructor
+     * @param code Postfix instructions
+     * @param numVars Number of variable slots used by the program
+     * @param numOperators Number of operator instructions in the program
+     * @param maxStackSize Largest number of values on the stack at any point of the program
+     */
+    private CompiledExpr(int[] code, int numVars, int numOperators, int maxStackSize) {
+        this.code = code;
+        this.numVars = numVars;
+        this.numOperators = numOperators;
+        this.maxStackSize = maxStackSize;
+    }
+
+    /**
+     * Compiles a parse tree into a postfix program. Operators are emitted in the same order that their sub
+     * expressions appear in the header of the truth table
+     * @param root Root node of the parse tree
+     * @param numVars Number of variables in the expression. The id of each variable is used as its slot index
+     * @return the compiled expression
+     */
+    public static CompiledExpr compile(ParseTreeNode root, int numVars) {
+        ArrayList<Integer> instructions = new ArrayList<>();
+        // Index 0 holds the current stack size and index 1 the largest stack size seen
+        int[] stackSizes = new int[2];
+        emit(root, new IdentityHashMap<ParseTreeNode, Integer>(), numVars, instructions, stackSizes);
+        int[] code = new int[instructions.size()];
+        int numOperators = 0;
+        for (int i = 0; i < code.length; i++) {
+            code[i] = instructions.get(i);
+            if ((code[i] & OPCODE_MASK) != LOAD) numOperators++;
+        }
+        return new CompiledExpr(code, numVars, numOperators, stackSizes[1]);
+    }
+
+    /**
+     * Helper method for compile: Traverse the tree in post order to emit the instructions for each node. The
+     * traversal uses an explicit stack rather than recursion so that deeply nested expressions can't overflow the
+     * call stack
+     * @param root Root node of the parse tree
+     * @param operatorSlots Slot of each operator node that has already been emitted
+     * @param numVars Number of variables in the expression
+     * @param instructions List of instructions emitted so far
+     * @param stackSizes Current and largest stack size of the program
+     */
+    private static void emit(ParseTreeNode root, Map<ParseTreeNode, Integer> operatorSlots, int numVars,
+                             List<Integer> instructions, int[] stackSizes) {
+        ArrayDeque<ParseTreeNode> nodes = new ArrayDeque<>();
+        // Whether the children of the node at the same position in nodes have already been pushed
+        ArrayDeque<Boolean> expanded = new ArrayDeque<>();
+        nodes.push(root);
+        expanded.push(false);
+        while (!nodes.isEmpty()) {
+            ParseTreeNode currNode = nodes.pop();
+            boolean childrenDone = expanded.pop();
+            Token currToken = currNode.getCurrToken();
+            Integer operatorSlot = operatorSlots.get(currNode);
+            if (Token.isVar(currToken) || operatorSlot != null) {
+                // Shared sub expressions have already been evaluated so load them from their slot
+                int slot = (operatorSlot != null) ? operatorSlot : currNode.getVarId();
+                instructions.add((slot << OPCODE_BITS) | LOAD);
+                stackSizes[0]++;
+                stackSizes[1] = Math.max(stackSizes[0], stackSizes[1]);
+                continue;
+            }
+            if (!childrenDone) {
+                // Come back to this node once its children have been emitted, left first
+                nodes.push(currNode);
+                expanded.push(true);
+                nodes.push(currNode.getRightNode());
+                expanded.push(false);
+                // Special case for NOT since it doesn't have a left node
+                if (currToken != Token.NOT) {
+                    nodes.push(currNode.getLeftNode());
+                    expanded.push(false);
+                }
+                continue;
+            }
+            operatorSlots.put(currNode, numVars + operatorSlots.size());
+            switch (currToken) {
+                case NOT:
+                    instructions.add(NOT);
+                    // NOT replaces the top of the stack
+                    continue;
+                case AND:
+                    instructions.add(AND);
+                    break;
+                case OR:
+                    instructions.add(OR);
+                    break;
+                case IMPL:
+                    instructions.add(IMPL);
+                    break;
+                case BICOND:
+                    instructions.add(BICOND);
+                    break;
+                // This should never be reached unless given an unknown symbol which shouldn't be possible
+                default:
+                    throw new IllegalArgumentException("Unknown operator " + currToken);
+            }
+            // Connectives pop two values and push one
+            stackSizes[0]--;
+        }
+    }
+
+    /**
+     * Evaluate the expression for a single assignment of the variables
+     * @param assignment Value of each variable where the variable in slot i is bit (numVars - 1 - i), so the
+     *                   assignment is the same as the row number in the truth table
+     * @return a true or false value for the expression
+     */
+    public boolean eval(long assignment) {
+        long[] stack = new long[maxStackSize];
+        long[] slots = new long[numVars + numOperators];
+        for (int i = 0; i < numVars; i++) {
+            slots[i] = (assignment >>> (numVars - 1 - i)) & 1;
+        }
+        int top = -1;
+        int currSlot = numVars;
+        for (int instruction: code) {
+            int opcode = instruction & OPCODE_MASK;
+            if (opcode == LOAD) {
+                stack[++top] = slots[instruction >>> OPCODE_BITS];
+                continue;
+            } else if (opcode == NOT) {
+                stack[top] ^= 1;
+            } else {
+                long rightVal = stack[top--];
+                stack[top] = applyWord(opcode, stack[top], rightVal) & 1;
+            }
+            slots[currSlot++] = stack[top];
+        }
+        return stack[0] != 0;
+    }
+
+    /**
+     * Evaluate every row of the truth table 64 rows at a time, storing the value of each variable and operator in its
+     * own bit column
+     * @param parallelism Number of threads to split the words between, 1 or less evaluates on the calling thread
+     * @return the bit column of each variable followed by the bit column of each operator in the order they appear
+     * in the program
+     * @throws IllegalStateException if the expression has more than ParseTreeRoot.MAX_COLUMN_VARIABLES variables
+     */
+    public long[][] evalColumns(int parallelism) {
+        long start = Metrics.getInstance().start();
+        long rows = columnRows();
+        int words = BitColumns.wordCount(rows);
+        long[][] columns = new long[numVars + numOperators][words];
+        if (parallelism <= 1) {
+            fillColumns(columns, 0, words);
+        } else {
+            invokeInPool(parallelism, new EvalWordsTask(null, columns, 0, words));
+        }
+        // Negation sets the unused bits past the last row so clear them again
+        long tailMask = BitColumns.tailMask(rows);
+        for (long[] column: columns) {
+            column[words - 1] &= tailMask;
+        }
+        Metrics.getInstance().addRowsEvaluated(rows);
+        Metrics.getInstance().stop(Metrics.Phase.EVALUATE, start);
+        return columns;
+    }
+
+    /**
+     * Evaluate one word of 64 rows of the truth table, storing the word of every variable and operator column
+     * @param word Index of the word, so the first row evaluated is word * 64
+     * @param stack Stack to evaluate the program on, must hold at least getMaxStackSize() values
+     * @param columnWords Filled in with the word of each variable followed by the word of each operator in the
+     *                    order they appear in the program. Bits past the last row of the table are undefined
+     * @return value of the expression for each of the 64 rows
+     */
+    public long evalWordColumns(long word, long[] stack, long[] columnWords) {
+        for (int i = 0; i < numVars; i++) {
+            columnWords[i] = BitColumns.variableWord(i, numVars, word);
+        }
+        return evalLoadedWord(stack, columnWords);
+    }
+
+    /**
+     * Evaluate one word of 64 rows where the words of the variables have already been filled in by the caller. This
+     * lets the rows be given any assignment of the variables, such as when the variables are part of a larger set
+     * @param stack Stack to evaluate the program on, must hold at least getMaxStackSize() values
+     * @param columnWords Holds the word of each variable in its first getNumVars() values, the rest are filled in
+     *                    with the word of each operator in the order they appear in the program
+     * @return value of the expression for each of the 64 rows
+     */
+    public long evalLoadedWord(long[] stack, long[] columnWords) {
+        int top = -1;
+        int currColumn = numVars;
+        for (int instruction: code) {
+            int opcode = instruction & OPCODE_MASK;
+            if (opcode == LOAD) {
+                stack[++top] = columnWords[instruction >>> OPCODE_BITS];
+                continue;
+            } else if (opcode == NOT) {
+                stack[top] = ~stack[top];
+            } else {
+                long rightVal = stack[top--];
+                stack[top] = applyWord(opcode, stack[top], rightVal);
+            }
+            columnWords[currColumn++] = stack[top];
+        }
+        return stack[0];
+    }
+
+    /**
+     * Evaluate only the main expression for every row of the truth table, 64 rows at a time. The words of each
+     * variable and operator are only kept for the word being evaluated so no column is stored apart from the result
+     * @return bit column holding the value of the expression for each row
+     */
+    public long[] evalResults() {
+        return evalResults(1);
+    }
+
+    /**
+     * Evaluate only the main expression for every row of the truth table in the same way as evalResults() but
+     * splitting the words between the threads of a ForkJoinPool
+     * @param parallelism Number of threads to use, 1 or less evaluates on the calling thread
+     * @return bit column holding the value of the expression for each row
+     * @throws IllegalStateException if the expression has more than ParseTreeRoot.MAX_COLUMN_VARIABLES variables
+     */
+    public long[] evalResults(int parallelism) {
+        long start = Metrics.getInstance().start();
+        long rows = columnRows();
+        long[] result = new long[BitColumns.wordCount(rows)];
+        if (parallelism <= 1) {
+            fillResults(result, 0, result.length);
+        } else {
+            invokeInPool(parallelism, new EvalWordsTask(result, null, 0, result.length));
+        }
+        result[result.length - 1] &= BitColumns.tailMask(rows);
+        Metrics.getInstance().addRowsEvaluated(rows);
+        Metrics.getInstance().stop(Metrics.Phase.EVALUATE, start);
+        return result;
+    }
+
+    /**
+     * Evaluate only the main expression for every row of the truth table, 64 rows at a time, skipping the operands
+     * of AND, OR and IMPL for the rows their other operand already decides. See ShortCircuitEvaluator
+     * @return bit column holding the value of the expression for each row, the same as evalResults()
+     * @throws IllegalStateException if the expression has more than ParseTreeRoot.MAX_COLUMN_VARIABLES variables
+     */
+    public long[] evalResultsShortCircuit() {
+        long start = Metrics.getInstance().start();
+        long rows = columnRows();
+        long[] result = new ShortCircuitEvaluator(this).evalResults(rows);
+        Metrics.getInstance().addRowsEvaluated(rows);
+        Metrics.getInstance().stop(Metrics.Phase.EVALUATE, start);
+        return result;
+    }
+
+    /**
+     * Count the rows of the truth table where the expression is true, evaluating 64 rows at a time and adding up the
+     * set bits of each word. No column is stored, not even the result
+     * @param parallelism Number of threads to split the words between, 1 or less counts on the calling thread
+     * @return number of satisfying assignments
+     */
+    public long countModels(int parallelism) {
+        long start = Metrics.getInstance().start();
+        long rows = numRows();
+        // Nothing is stored so the words are counted with a long, unlike the columns which need an int sized array
+        long words = (rows + 63) >>> 6;
+        long count;
+        if (parallelism <= 1) {
+            count = countWords(0, words, rows);
+        } else {
+            count = invokeInPool(parallelism, new CountWordsTask(0, words, rows));
+        }
+        Metrics.getInstance().addRowsEvaluated(rows);
+        Metrics.getInstance().stop(Metrics.Phase.EVALUATE, start);
+        return count;
+    }
+
+    /**
+     * Find the first row of the truth table where the expression has the given value, evaluating 64 rows at a time
+     * and stopping at the first word that holds such a row. Nothing is stored apart from the word being evaluated
+     * @param value Value of the expression to look for
+     * @param fromRow Row to start looking from
+     * @return the row number, which is also the assignment of the variables, or -1 if no row from fromRow onwards has
+     * the value
+     */
+    public long findRow(boolean value, long fromRow) {
+        long rows = numRows();
+        if (fromRow < 0 || fromRow >= rows) return -1;
+        long start = Metrics.getInstance().start();
+        long[] stack = new long[maxStackSize];
+        long[] columnWords = new long[numVars + numOperators];
+        long lastWord = (rows - 1) >>> 6;
+        long found = -1;
+        for (long w = fromRow >>> 6; w <= lastWord; w++) {
+            long word = evalWordColumns(w, stack, columnWords);
+            if (!value) word = ~word;
+            // Ignore the rows before fromRow in the first word and the rows past the end in the last word
+            if (w == fromRow >>> 6) word &= -1L << fromRow;
+            if (w == lastWord) word &= BitColumns.tailMask(rows);
+            if (word != 0) {
+                found = (w << 6) + Long.numberOfTrailingZeros(word);
+                Metrics.getInstance().addRowsEvaluated((w - (fromRow >>> 6) + 1) << 6);
+                break;
+            }
+        }
+        if (found < 0) Metrics.getInstance().addRowsEvaluated(rows - ((fromRow >>> 6) << 6));
+        Metrics.getInstance().stop(Metrics.Phase.EVALUATE, start);
+        return found;
+    }
+
+    /**
+     * Evaluate a range of words of the result column
+     * @param result Result column being filled in
+     * @param fromWord First word to evaluate
+     * @param toWord Word to stop at, which is not included
+     */
+    private void fillResults(long[] result, int fromWord, int toWord) {
+        long[] stack = new long[maxStackSize];
+        long[] columnWords = new long[numVars + numOperators];
+        for (int w = fromWord; w < toWord; w++) {
+            result[w] = evalWordColumns(w, stack, columnWords);
+        }
+    }
+
+    /**
+     * Count the true rows in a range of words
+     * @param fromWord First word to evaluate
+     * @param toWord Word to stop at, which is not included
+     * @param rows Number of rows in the truth table, used to ignore the bits past the last row
+     * @return number of true rows
+     */
+    private long countWords(long fromWord, long toWord, long rows) {
+        long[] stack = new long[maxStackSize];
+        long[] columnWords = new long[numVars + numOperators];
+        long lastWord = (rows - 1) >>> 6;
+        long count = 0;
+        for (long w = fromWord; w < toWord; w++) {
+            long word = evalWordColumns(w, stack, columnWords);
+            if (w == lastWord) word &= BitColumns.tailMask(rows);
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * Evaluate a range of words of every variable and operator column
+     * @param columns Columns being filled in
+     * @param fromWord First word to evaluate
+     * @param toWord Word to stop at, which is not included
+     */
+    private void fillColumns(long[][] columns, int fromWord, int toWord) {
+        long[] stack = new long[maxStackSize];
+        long[] columnWords = new long[columns.length];
+        for (int w = fromWord; w < toWord; w++) {
+            evalWordColumns(w, stack, columnWords);
+            for (int i = 0; i < columns.length; i++) {
+                columns[i][w] = columnWords[i];
+            }
+        }
+    }
+
+    /**
+     * Run a task on a new ForkJoinPool and wait for it to finish
+     * @param parallelism Number of threads in the pool
+     * @param task Task to run
+     * @return result of the task
+     */
+    private static <T> T invokeInPool(int parallelism, ForkJoinTask<T> task) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return pool.invoke(task);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Task counting the true rows in a range of words, splitting itself in half until the range is small enough and
+     * adding up the counts of both halves
+     */
+    private class CountWordsTask extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+
+        private long fromWord;
+        private long toWord;
+        private long rows;
+
+        /**
+         * Constructor
+         * @param fromWord First word to evaluate
+         * @param toWord Word to stop at, which is not included
+         * @param rows Number of rows in the truth table
+         */
+        CountWordsTask(long fromWord, long toWord, long rows) {
+            this.fromWord = fromWord;
+            this.toWord = toWord;
+            this.rows = rows;
+        }
+
+        @Override
+        protected Long compute() {
+            if (toWord - fromWord <= WORDS_PER_TASK) {
+                return countWords(fromWord, toWord, rows);
+            }
+            long midWord = (fromWord + toWord) >>> 1;
+            CountWordsTask left = new CountWordsTask(fromWord, midWord, rows);
+            left.fork();
+            long rightCount = new CountWordsTask(midWord, toWord, rows).compute();
+            return left.join() + rightCount;
+        }
+    }
+
+    /**
+     * Task evaluating a range of words of either the result column or every column, splitting itself in half until
+     * the range is small enough. Each task writes to its own words of the columns so no synchronisation is needed
+     */
+    private class EvalWordsTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private long[] result;
+        private long[][] columns;
+        private int fromWord;
+        private int toWord;
+
+        /**
+         * Constructor
+         * @param result Result column being filled in, or null if every column is being filled in
+         * @param columns Columns being filled in, or null if only the result is being filled in
+         * @param fromWord First word to evaluate
+         * @param toWord Word to stop at, which is not included
+         */
+        EvalWordsTask(long[] result, long[][] columns, int fromWord, int toWord) {
+            this.result = result;
+            this.columns = columns;
+            this.fromWord = fromWord;
+            this.toWord = toWord;
+        }
+
+        @Override
+        protected void compute() {
+            if (toWord - fromWord <= WORDS_PER_TASK) {
+                if (result != null) {
+                    fillResults(result, fromWord, toWord);
+                } else {
+                    fillColumns(columns, fromWord, toWord);
+                }
+                return;
+            }
+            int midWord = (fromWord + toWord) >>> 1;
+            invokeAll(new EvalWordsTask(result, columns, fromWord, midWord),
+                    new EvalWordsTask(result, columns, midWord, toWord));
+        }
+    }
+
+    /**
+     * @return Number of rows in the truth table of the expression
+     * @throws IllegalStateException if there are too many variables to go through every row
+     */
+    private long numRows() {
+        if (numVars > ParseTreeRoot.MAX_VARIABLES)
+            throw new IllegalStateException("Rows of a truth table can only be numbered for at most "
+                    + ParseTreeRoot.MAX_VARIABLES + " variables, use SatSolver instead");
+        return 1L << numVars;
+    }
+
+    /**
+     * @return Number of rows in the truth table of the expression, when they can be stored as bit columns
+     * @throws IllegalStateException if there are too many variables for the words of a column to fit in an array
+     */
+    long columnRows() {
+        if (numVars > ParseTreeRoot.MAX_COLUMN_VARIABLES)
+            throw new IllegalStateException("Truth table columns can only be stored for at most "
+                    + ParseTreeRoot.MAX_COLUMN_VARIABLES + " variables, use rows(), countModels() or models() instead");
+        return 1L << numVars;
+    }
+
+    /**
+     * Applies a connective to a word of values for its LHS and RHS
+     * @param opcode Opcode of the connective
+     * @param leftVal Values of the LHS
+     * @param rightVal Values of the RHS
+     * @return values of the connective
+     */
+    private static long applyWord(int opcode, long leftVal, long rightVal) {
+        switch (opcode) {
+            case AND: return leftVal & rightVal;
+            case OR: return leftVal | rightVal;
+            case IMPL: return ~leftVal | rightVal;
+            case BICOND: return ~(leftVal ^ rightVal);
+            // This should never be reached unless given an unknown opcode which shouldn't be possible
+            default: return 0;
+        }
+    }
+
+    /**
+     * Work out the operands of each operator by running the program on a stack of slots instead of values
+     * @param opcodes Filled in with the opcode of each operator
+     * @param leftSlots Filled in with the slot of the LHS of each operator, or -1 for NOT
+     * @param rightSlots Filled in with the slot of the RHS of each operator
+     */
+    void decodeOperators(int[] opcodes, int[] leftSlots, int[] rightSlots) {
+        int[] stack = new int[maxStackSize];
+        int top = -1;
+        int op = 0;
+        for (int instruction: code) {
+            int opcode = instruction & OPCODE_MASK;
+            if (opcode == LOAD) {
+                stack[++top] = instruction >>> OPCODE_BITS;
+                continue;
+            }
+            opcodes[op] = opcode;
+            rightSlots[op] = stack[top--];
+            leftSlots[op] = (opcode == NOT) ? -1 : stack[top--];
+            stack[++top] = numVars + op++;
+        }
+    }
+
+    /**
+     * @return Number of variable slots used by the expression
+     */
+    public int getNumVars() {
+        return numVars;
+    }
+
+    /**
+     * @return Number of distinct operators in the expression, which is the number of sub expression columns in the
+     * truth table
+     */
+    public int getNumOperators() {
+        return numOperators;
+    }
+
+    /**
+     * @return Largest number of values on the stack at any point of the program
+     */
+    public int getMaxStackSize() {
+        return maxStackSize;
+    }
+
+    /**
+     * @return Copy of the postfix instructions
+     */
+    public int[] getCode() {
+        return code.clone();
+    }
+
+    /**
+     * @return Number of postfix instructions, without copying them
+     */
+    public int getCodeLength() {
+        return code.length;
+    }
+}
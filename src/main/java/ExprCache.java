@@ -0,0 +1,235 @@
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author Richard Luong
+ * Bounded cache of parse trees keyed by the normalised token sequence of an expression. Each cached tree has already
+ * been compiled and had the result column of its main expression evaluated. The least recently used trees are
+ * evicted once there are more than a maximum number of entries or their total weight, roughly the bytes used by
+ * their result columns and programs, goes over a limit. The weight is worked out from the number of variables before
+ * anything is evaluated, so a tree whose result column alone is heavier than the limit is returned without being
+ * evaluated or cached, and a tree with more than ParseTreeRoot.MAX_COLUMN_VARIABLES variables is cached without a
+ * result column. Concurrent requests for the same expression that isn't cached yet only build the tree once, with
+ * the other requests waiting for that result.
+ */
+public class ExprCache {
+    private final int maxEntries;
+    private final long maxWeight;
+    private final LinkedHashMap<String, Entry> entries;
+    private final ConcurrentHashMap<String, CompletableFuture<ParseTreeRoot>> inFlight;
+    private long weight;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Constructor
+     * @param maxEntries Most expressions that can be cached at once
+     * @param maxWeight Most total weight of the cached expressions
+     */
+    public ExprCache(int maxEntries, long maxWeight) {
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+        // Access order so that iterating starts from the least recently used entry
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+        this.inFlight = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Get the parse tree of an expression, building and caching it if it isn't cached already. The result column of
+     * the tree has already been evaluated so getResultColumn() doesn't need to do any work, unless the tree has too
+     * many variables for its column to be stored or to fit in the cache
+     * @param inputStr prop logic expression as a string
+     * @return the cached parse tree
+     * @throws IllegalArgumentException if the expression is not valid
+     */
+    public ParseTreeRoot get(String inputStr) {
+        TokenList tokens = Parser.getInstance().createTokensFromInput(inputStr);
+        String key = tokens.toNormalizedString();
+        ParseTreeRoot cached = getCached(key);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return cached;
+        }
+        CompletableFuture<ParseTreeRoot> future = new CompletableFuture<>();
+        CompletableFuture<ParseTreeRoot> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            // Another thread is already building this tree so wait for it
+            hits.incrementAndGet();
+            return join(existing);
+        }
+        try {
+            // The tree may have been cached between checking the cache and registering this request
+            cached = getCached(key);
+            if (cached != null) {
+                hits.incrementAndGet();
+                future.complete(cached);
+                return cached;
+            }
+            misses.incrementAndGet();
+            Entry entry = load(tokens);
+            // A tree heavier than the limit would only evict every other tree and then itself
+            if (entry.weight <= maxWeight) put(key, entry);
+            future.complete(entry.root);
+            return entry.root;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    /**
+     * Get the result column of an expression through the cache
+     * @param inputStr prop logic expression as a string
+     * @return bit column holding the value of the main expression for each row, which must not be modified
+     * @throws IllegalArgumentException if the expression is not valid
+     */
+    public long[] getResultColumn(String inputStr) {
+        return get(inputStr).getResultColumn();
+    }
+
+    /**
+     * Validate, build and evaluate the tree of an expression. The result column is only evaluated if it can be stored
+     * and fits in the cache
+     * @param tokens Tokens of the expression
+     * @return the parse tree along with its weight
+     */
+    private Entry load(TokenList tokens) {
+        Parser parser = Parser.getInstance();
+        ValidExprStatus status = parser.isValidExpr(tokens);
+        if (status != ValidExprStatus.VALID_EXPR) {
+            throw new IllegalArgumentException(status.getMsg());
+        }
+        ParseTreeRoot root = parser.createParseTree(tokens);
+        long rootWeight = weigh(root);
+        if (hasColumn(root) && rootWeight <= maxWeight) root.getResultColumn();
+        return new Entry(root, rootWeight);
+    }
+
+    /**
+     * Wait for another thread to finish building a tree
+     * @param future Result of the other thread
+     * @return the parse tree
+     */
+    private static ParseTreeRoot join(CompletableFuture<ParseTreeRoot> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw e;
+        }
+    }
+
+    /**
+     * @param key Normalised expression
+     * @return the cached tree, or null if it isn't cached
+     */
+    private synchronized ParseTreeRoot getCached(String key) {
+        Entry entry = entries.get(key);
+        return (entry != null) ? entry.root : null;
+    }
+
+    /**
+     * Add a tree to the cache and evict the least recently used trees until the cache is within its limits again
+     * @param key Normalised expression
+     * @param entry Parse tree to add along with its weight
+     */
+    private synchronized void put(String key, Entry entry) {
+        Entry replaced = entries.put(key, entry);
+        if (replaced != null) weight -= replaced.weight;
+        weight += entry.weight;
+        Iterator<Entry> entryIt = entries.values().iterator();
+        while (entryIt.hasNext() && (entries.size() > maxEntries || weight > maxWeight)) {
+            weight -= entryIt.next().weight;
+            entryIt.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    /**
+     * @param root Parse tree
+     * @return true if the result column of the tree can be stored
+     */
+    private static boolean hasColumn(ParseTreeRoot root) {
+        return root.getNumVariables() <= ParseTreeRoot.MAX_COLUMN_VARIABLES;
+    }
+
+    /**
+     * Work out the weight of a tree from its number of variables, so it doesn't need to be evaluated first. The weight
+     * is worked out once when the tree is loaded and kept with its entry
+     * @param root Parse tree
+     * @return Approximate number of bytes used by the result column and program of the tree
+     */
+    private static long weigh(ParseTreeRoot root) {
+        long programWeight = 4L * root.getCompiledExpr().getCodeLength();
+        if (!hasColumn(root)) return programWeight;
+        return 8L * BitColumns.wordCount(1L << root.getNumVariables()) + programWeight;
+    }
+
+    /**
+     * Remove every expression from the cache. The counters are not reset
+     */
+    public synchronized void clear() {
+        entries.clear();
+        weight = 0;
+    }
+
+    /**
+     * @return Number of expressions in the cache
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return Total weight of the expressions in the cache
+     */
+    public synchronized long getWeight() {
+        return weight;
+    }
+
+    /**
+     * @return Number of requests answered without building a tree, including requests that waited for another
+     * thread building the same tree
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * @return Number of requests that built a tree
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * @return Number of trees evicted from the cache
+     */
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    /**
+     * Cached tree along with the weight it was added with
+     */
+    private static final class Entry {
+        private final ParseTreeRoot root;
+        private final long weight;
+
+        /**
+         * Constructor
+         * @param root Parse tree
+         * @param weight Weight of the tree
+         */
+        private Entry(ParseTreeRoot root, long weight) {
+            this.root = root;
+            this.weight = weight;
+        }
+    }
+}
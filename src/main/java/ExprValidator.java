@@ -0,0 +1,121 @@
+/**
+ * @author Richard Luong
+ * State machine that checks an expression one token at a time, so an expression can be validated in a single linear
+ * pass while it is being tokenized. It only keeps whether the next token has to start an operand or follow one, the
+ * depth of the open parentheses and the first error of each kind, so no memory is allocated per token.
+ * When an expression has more than one error the same ValidExprStatus is reported as the original multi pass
+ * validator: unbalanced parentheses first, then the first adjacency error, then the first invalid operator.
+ * A grouped sub expression next to a variable or another group, such as (P)Q or P(Q), used to be let through and is
+ * now reported as ADJACENT_VARIABLES after all of those.
+ */
+final class ExprValidator {
+    // Kind of the previous token
+    private static final int START = 0;
+    private static final int OPERAND = 1;
+    private static final int CONNECTIVE = 2;
+    private static final int NEGATION = 3;
+    private static final int OPEN_PAREN = 4;
+
+    private int prev = START;
+    private boolean prevVar = false;
+    private int depth = 0;
+    private int numTokens = 0;
+
+    private int unknownOffset = -1;
+    private int unbalancedOffset = -1;
+    private ValidExprStatus adjacencyStatus = null;
+    private int adjacencyOffset = -1;
+    private int operatorOffset = -1;
+    private int juxtapositionOffset = -1;
+
+    /**
+     * Checks the next token of the expression against the previous one
+     * @param token Next token of the expression
+     * @param offset Position of the token in the input, used to report where the expression is invalid
+     * @return false once the expression can't be valid no matter what follows, which only happens for an unknown
+     *         symbol. Other errors are recorded and reported by finish() after the whole expression is seen
+     */
+    boolean accept(Token token, int offset) {
+        numTokens++;
+        if (token == Token.UNKNOWN) {
+            if (unknownOffset < 0) unknownOffset = offset;
+            return false;
+        }
+        boolean afterOperand = (prev == OPERAND);
+        boolean prevVar = this.prevVar;
+        this.prevVar = Token.isVar(token);
+        if (Token.isVar(token)) {
+            if (afterOperand) {
+                if (prevVar) adjacencyError(ValidExprStatus.ADJACENT_VARIABLES, offset);
+                else juxtapositionError(offset);
+            }
+            prev = OPERAND;
+        } else if (token == Token.L_PAREN) {
+            if (afterOperand) juxtapositionError(offset);
+            depth++;
+            prev = OPEN_PAREN;
+        } else if (token == Token.R_PAREN) {
+            if (depth == 0 && unbalancedOffset < 0) unbalancedOffset = offset;
+            depth = Math.max(depth - 1, 0);
+            if (prev == OPEN_PAREN) {
+                adjacencyError(ValidExprStatus.ADJACENT_PARENTHESES, offset);
+            } else if (prev == CONNECTIVE || prev == NEGATION) {
+                operatorError(offset);
+            }
+            prev = OPERAND;
+        } else if (token == Token.NOT) {
+            // A NOT can't be applied to anything on its left
+            if (afterOperand) operatorError(offset);
+            prev = NEGATION;
+        } else {
+            if (prev == CONNECTIVE || prev == NEGATION) {
+                adjacencyError(ValidExprStatus.ADJACENT_OPERATORS, offset);
+            } else if (!afterOperand) {
+                // Nothing on the LHS of the connective
+                operatorError(offset);
+            }
+            prev = CONNECTIVE;
+        }
+        return true;
+    }
+
+    /**
+     * Finishes the pass over the expression
+     * @param endOffset Position just past the last token in the input
+     * @return the status of the whole expression along with the offset of the token that made it invalid
+     */
+    ValidationResult finish(int endOffset) {
+        if (numTokens == 0) return new ValidationResult(ValidExprStatus.EMPTY_EXPR, endOffset);
+        if (unknownOffset >= 0) return new ValidationResult(ValidExprStatus.UNKNOWN_SYMBOL, unknownOffset);
+        // An unclosed parenthesis is missing its pair at the end of the expression
+        if (depth > 0 && unbalancedOffset < 0) unbalancedOffset = endOffset;
+        if (unbalancedOffset >= 0) return new ValidationResult(ValidExprStatus.UNBALANCED_PARENTHESES, unbalancedOffset);
+        if (adjacencyStatus != null) return new ValidationResult(adjacencyStatus, adjacencyOffset);
+        // Nothing on the RHS of the last operator
+        if (prev == CONNECTIVE || prev == NEGATION) operatorError(endOffset);
+        if (operatorOffset >= 0) {
+            return new ValidationResult(ValidExprStatus.LHS_OR_RHS_OF_OPERATOR_INVALID, operatorOffset);
+        }
+        if (juxtapositionOffset >= 0) {
+            return new ValidationResult(ValidExprStatus.ADJACENT_VARIABLES, juxtapositionOffset);
+        }
+        return new ValidationResult(ValidExprStatus.VALID_EXPR, -1);
+    }
+
+    // Only the first error of each kind is kept
+
+    private void adjacencyError(ValidExprStatus status, int offset) {
+        if (adjacencyStatus == null) {
+            adjacencyStatus = status;
+            adjacencyOffset = offset;
+        }
+    }
+
+    private void operatorError(int offset) {
+        if (operatorOffset < 0) operatorOffset = offset;
+    }
+
+    private void juxtapositionError(int offset) {
+        if (juxtapositionOffset < 0) juxtapositionOffset = offset;
+    }
+}
@@ -0,0 +1,183 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * @author Richard Luong
+ * Goes through the rows of a truth table in Gray code order, where exactly one variable changes between one row and
+ * the next. The value of every variable and operator slot of the compiled expression is kept from the previous row
+ * along with the operators that use each slot, so after a variable flips only the operators above it are evaluated
+ * again, and only while their value keeps changing. Operators come after their operands in the program, so going
+ * through the changed operators from the lowest slot up evaluates each one at most once per row.
+ * Values are kept in the column words of a TruthTableRow as all 0 or all 1 bits, which reads the same whatever the
+ * position of the row within its word, so moving to the next row only writes the slots that changed. Building whole
+ * columns with evalColumns() is different, since every slot is copied into its column for every row.
+ */
+final class GrayCodeEvaluator implements Iterator<TruthTableRow> {
+    private final int numVars;
+    private final int numOperators;
+    private final long rows;
+    // Opcode and operand slots of each operator. NOT only has a right operand
+    private final int[] opcodes;
+    private final int[] leftSlots;
+    private final int[] rightSlots;
+    // Operators using slot s are parents[parentStarts[s]] up to parents[parentStarts[s + 1]]
+    private final int[] parentStarts;
+    private final int[] parents;
+    // Operators that have to be evaluated again, one bit per operator
+    private final long[] dirty;
+    private final long[] values;
+    private final TruthTableRow row;
+    // Position of the next row in Gray code order
+    private long nextIndex;
+
+    /**
+     * Constructor: Evaluates the first row, where every variable is false
+     * @param expr Compiled expression
+     * @param rows Number of rows in the truth table
+     */
+    GrayCodeEvaluator(CompiledExpr expr, long rows) {
+        this.numVars = expr.getNumVars();
+        this.numOperators = expr.getNumOperators();
+        this.rows = rows;
+        this.opcodes = new int[numOperators];
+        this.leftSlots = new int[numOperators];
+        this.rightSlots = new int[numOperators];
+        expr.decodeOperators(opcodes, leftSlots, rightSlots);
+        int numSlots = numVars + numOperators;
+        int[] numParents = new int[numSlots];
+        int op;
+        for (op = 0; op < numOperators; op++) {
+            numParents[rightSlots[op]]++;
+            // P^P only needs P to have the operator as a parent once
+            if (leftSlots[op] >= 0 && leftSlots[op] != rightSlots[op]) numParents[leftSlots[op]]++;
+        }
+        this.parentStarts = new int[numSlots + 1];
+        for (int s = 0; s < numSlots; s++) {
+            parentStarts[s + 1] = parentStarts[s] + numParents[s];
+        }
+        this.parents = new int[parentStarts[numSlots]];
+        int[] fill = new int[numSlots];
+        for (op = 0; op < numOperators; op++) {
+            int right = rightSlots[op];
+            parents[parentStarts[right] + fill[right]++] = op;
+            int left = leftSlots[op];
+            if (left >= 0 && left != right) parents[parentStarts[left] + fill[left]++] = op;
+        }
+        this.dirty = new long[BitColumns.wordCount(numOperators)];
+        this.row = new TruthTableRow(numSlots);
+        this.values = row.getColumnWords();
+        // Every variable starts false so every operator is evaluated once
+        for (op = 0; op < numOperators; op++) {
+            values[numVars + op] = evalOperator(op);
+        }
+        this.nextIndex = 0;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return nextIndex < rows;
+    }
+
+    /**
+     * Move to the next row in Gray code order. The row number of the returned row is its position in the standard
+     * order of the truth table, which is also the assignment of the variables
+     * @return the same TruthTableRow every time, holding the values of the next row
+     */
+    @Override
+    public TruthTableRow next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        if (nextIndex > 0) {
+            // Going from Gray code i - 1 to i flips the bit at the lowest set bit of i. The first variable is the
+            // most significant bit of the row number
+            flip(numVars - 1 - Long.numberOfTrailingZeros(nextIndex));
+        }
+        if ((nextIndex & 63) == 0) {
+            Metrics.getInstance().addRowsEvaluated(Math.min(64, rows - nextIndex));
+        }
+        row.setRowNum(nextIndex ^ (nextIndex >>> 1));
+        nextIndex++;
+        return row;
+    }
+
+    /**
+     * Go through every row in Gray code order and put the value of every slot back in its row in the standard order.
+     * The rows of a run where a slot doesn't change are spread out in the standard order, so every slot is written
+     * for every row one bit at a time. This is slower than CompiledExpr.evalColumns(), which does 64 rows at a time
+     * @return a bit column for each variable and operator slot in standard row order
+     */
+    long[][] evalColumns() {
+        int words = BitColumns.wordCount(rows);
+        long[][] columns = new long[values.length][words];
+        while (hasNext()) {
+            long rowNum = next().getRowNum();
+            long bit = 1L << rowNum;
+            int word = (int) (rowNum >>> 6);
+            for (int s = 0; s < values.length; s++) {
+                columns[s][word] |= values[s] & bit;
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * Flip a variable and evaluate the operators above it again. An operator whose value doesn't change stops its
+     * parents from being marked, so only the paths that actually changed are evaluated
+     * @param var Id of the variable that changed
+     */
+    private void flip(int var) {
+        values[var] = ~values[var];
+        int lowestWord = markParents(var);
+        for (int w = lowestWord; w < dirty.length; w++) {
+            // Parents always come after their operands so they are either later in this word or in a later word
+            while (dirty[w] != 0) {
+                int op = (w << 6) + Long.numberOfTrailingZeros(dirty[w]);
+                dirty[w] &= dirty[w] - 1;
+                long value = evalOperator(op);
+                if (value != values[numVars + op]) {
+                    values[numVars + op] = value;
+                    markParents(numVars + op);
+                }
+            }
+        }
+    }
+
+    /**
+     * Helper method for flip: Mark every operator using a slot as needing to be evaluated again
+     * @param slot Slot that changed
+     * @return the word of the dirty bits holding the lowest operator marked, or dirty.length if nothing was marked
+     */
+    private int markParents(int slot) {
+        int lowestWord = dirty.length;
+        for (int i = parentStarts[slot]; i < parentStarts[slot + 1]; i++) {
+            int op = parents[i];
+            dirty[op >>> 6] |= 1L << op;
+            lowestWord = Math.min(lowestWord, op >>> 6);
+        }
+        return lowestWord;
+    }
+
+    /**
+     * Evaluate an operator from the current values of its operands
+     * @param op Index of the operator
+     * @return all 1 bits if the operator is true and 0 if it is false
+     */
+    private long evalOperator(int op) {
+        long r = values[rightSlots[op]];
+        long l = (leftSlots[op] >= 0) ? values[leftSlots[op]] : 0;
+        switch (opcodes[op]) {
+            case CompiledExpr.NOT:
+                return ~r;
+            case CompiledExpr.AND:
+                return l & r;
+            case CompiledExpr.OR:
+                return l | r;
+            case CompiledExpr.IMPL:
+                return ~l | r;
+            case CompiledExpr.BICOND:
+                return ~(l ^ r);
+            // This should never be reached unless given an unknown opcode which shouldn't be possible
+            default:
+                throw new IllegalArgumentException("Unknown opcode " + opcodes[op]);
+        }
+    }
+}
@@ -0,0 +1,223 @@
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * @author Richard Luong
+ * Optional evaluator that turns a compiled expression into a tree of MethodHandles with the type (long)boolean.
+ * The structure of the expression is built into the handles themselves so there is no instruction dispatch when
+ * the expression is evaluated and the JIT is able to inline the whole expression. Generated handles are cached per
+ * expression since building them is much more expensive than evaluating them. Only the MAX_CACHED most recently used
+ * evaluators are kept so a long running process evaluating many different expressions doesn't hold on to all of them.
+ * The handles are a tree rather than a graph, so a sub expression shared by more than one operator is evaluated again
+ * for each place it is used, unlike CompiledExpr which evaluates every shared sub expression once. Evaluating the tree
+ * also calls through one level of handles per level of the expression, so expressions deeper than MAX_DEPTH are
+ * evaluated with CompiledExpr.eval() instead of generating handles that would overflow the call stack.
+ */
+public final class MethodHandleExpr {
+    // Most generated evaluators kept in the cache at once
+    public static final int MAX_CACHED = 256;
+    // Deepest expression that is turned into handles
+    public static final int MAX_DEPTH = 64;
+
+    // Access order so the least recently used evaluator is evicted first. Guarded by its own lock
+    private static final LinkedHashMap<String, MethodHandleExpr> cache =
+            new LinkedHashMap<String, MethodHandleExpr>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, MethodHandleExpr> eldest) {
+                    return size() > MAX_CACHED;
+                }
+            };
+
+    private static final MethodHandle BIT;
+    private static final MethodHandle EVAL;
+    private static final MethodHandle NOT;
+    private static final MethodHandle TRUE;
+    private static final MethodHandle FALSE;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            BIT = lookup.findStatic(MethodHandleExpr.class, "bit",
+                    MethodType.methodType(boolean.class, int.class, long.class));
+            NOT = lookup.findStatic(MethodHandleExpr.class, "not",
+                    MethodType.methodType(boolean.class, boolean.class));
+            EVAL = lookup.findVirtual(CompiledExpr.class, "eval",
+                    MethodType.methodType(boolean.class, long.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+        TRUE = MethodHandles.dropArguments(MethodHandles.constant(boolean.class, true), 0, long.class);
+        FALSE = MethodHandles.dropArguments(MethodHandles.constant(boolean.class, false), 0, long.class);
+    }
+
+    private final MethodHandle handle;
+
+    /**
+     * Constructor
+     * @param handle MethodHandle of type (long)boolean that evaluates the expression
+     */
+    private MethodHandleExpr(MethodHandle handle) {
+        this.handle = handle;
+    }
+
+    /**
+     * Get the generated evaluator for a parse tree, reusing a previously generated one for the same expression
+     * @param tree Parse tree of the expression
+     * @return the generated evaluator
+     */
+    public static MethodHandleExpr forTree(ParseTreeRoot tree) {
+        return forExpr(tree.getCompiledExpr());
+    }
+
+    /**
+     * Get the generated evaluator for a compiled expression, reusing a previously generated one for the same
+     * expression. Expressions deeper than MAX_DEPTH get an evaluator that calls CompiledExpr.eval() instead
+     * @param expr Compiled expression
+     * @return the generated evaluator
+     */
+    public static MethodHandleExpr forExpr(CompiledExpr expr) {
+        if (expr.getNumVars() > ParseTreeRoot.MAX_VARIABLES)
+            throw new IllegalArgumentException("Assignments can hold at most " + ParseTreeRoot.MAX_VARIABLES
+                    + " variables");
+        int[] code = expr.getCode();
+        StringBuilder key = new StringBuilder().append(expr.getNumVars());
+        for (int instruction: code) {
+            key.append(',').append(instruction);
+        }
+        String cacheKey = key.toString();
+        synchronized (cache) {
+            MethodHandleExpr cached = cache.get(cacheKey);
+            if (cached != null) return cached;
+        }
+        // Generated without holding the lock. If two threads generate the same expression the first one is kept
+        MethodHandle handle = (depth(code, expr.getNumVars()) > MAX_DEPTH)
+                ? EVAL.bindTo(expr) : generate(code, expr.getNumVars());
+        MethodHandleExpr generated = new MethodHandleExpr(handle);
+        synchronized (cache) {
+            MethodHandleExpr cached = cache.putIfAbsent(cacheKey, generated);
+            return (cached != null) ? cached : generated;
+        }
+    }
+
+    /**
+     * Helper method for forExpr: Find the depth of the expression, which is how many levels of handles an evaluation
+     * would call through
+     * @param code Postfix instructions of the expression
+     * @param numVars Number of variable slots used by the expression
+     * @return number of levels of the deepest path from the main expression to a variable
+     */
+    private static int depth(int[] code, int numVars) {
+        int[] stack = new int[code.length];
+        int[] operators = new int[code.length];
+        int top = -1;
+        int numOperators = 0;
+        for (int instruction: code) {
+            int opcode = instruction & CompiledExpr.OPCODE_MASK;
+            if (opcode == CompiledExpr.LOAD) {
+                int slot = instruction >>> CompiledExpr.OPCODE_BITS;
+                stack[++top] = (slot < numVars) ? 1 : operators[slot - numVars];
+                continue;
+            } else if (opcode == CompiledExpr.NOT) {
+                stack[top]++;
+            } else {
+                int rightDepth = stack[top--];
+                stack[top] = Math.max(stack[top], rightDepth) + 1;
+            }
+            operators[numOperators++] = stack[top];
+        }
+        return stack[0];
+    }
+
+    /**
+     * Builds the MethodHandle tree by running the postfix program on a stack of handles instead of values.
+     * Connectives are built out of guardWithTest so they short circuit the same way the Java operators do. A shared
+     * sub expression reuses the handle built for it, so it is part of the tree once for each place it is used
+     * @param code Postfix instructions of the expression
+     * @param numVars Number of variable slots used by the expression
+     * @return MethodHandle of type (long)boolean
+     */
+    private static MethodHandle generate(int[] code, int numVars) {
+        MethodHandle[] stack = new MethodHandle[code.length];
+        // Handle of each operator in the order they are stored in their slots
+        MethodHandle[] operators = new MethodHandle[code.length];
+        int top = -1;
+        int numOperators = 0;
+        for (int instruction: code) {
+            int opcode = instruction & CompiledExpr.OPCODE_MASK;
+            if (opcode == CompiledExpr.LOAD) {
+                int slot = instruction >>> CompiledExpr.OPCODE_BITS;
+                if (slot < numVars) {
+                    stack[++top] = MethodHandles.insertArguments(BIT, 0, numVars - 1 - slot);
+                } else {
+                    stack[++top] = operators[slot - numVars];
+                }
+                continue;
+            } else if (opcode == CompiledExpr.NOT) {
+                stack[top] = MethodHandles.filterReturnValue(stack[top], NOT);
+                operators[numOperators++] = stack[top];
+                continue;
+            }
+            MethodHandle rightVal = stack[top--];
+            MethodHandle leftVal = stack[top];
+            switch (opcode) {
+                case CompiledExpr.AND:
+                    stack[top] = MethodHandles.guardWithTest(leftVal, rightVal, FALSE);
+                    break;
+                case CompiledExpr.OR:
+                    stack[top] = MethodHandles.guardWithTest(leftVal, TRUE, rightVal);
+                    break;
+                case CompiledExpr.IMPL:
+                    stack[top] = MethodHandles.guardWithTest(leftVal, rightVal, TRUE);
+                    break;
+                case CompiledExpr.BICOND:
+                    stack[top] = MethodHandles.guardWithTest(leftVal, rightVal,
+                            MethodHandles.filterReturnValue(rightVal, NOT));
+                    break;
+                // This should never be reached unless given an unknown opcode which shouldn't be possible
+                default:
+                    throw new IllegalArgumentException("Unknown opcode " + opcode);
+            }
+            operators[numOperators++] = stack[top];
+        }
+        return stack[0];
+    }
+
+    /**
+     * Evaluate the expression for a single assignment of the variables
+     * @param assignment Value of each variable in the same form as CompiledExpr.eval(), which is the row number in
+     *                   the truth table
+     * @return a true or false value for the expression
+     */
+    public boolean eval(long assignment) {
+        try {
+            return (boolean) handle.invokeExact(assignment);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            // The handles only call bit(), not() and CompiledExpr.eval() which don't throw checked exceptions
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @return Number of generated evaluators currently cached
+     */
+    public static int cacheSize() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    // Leaf and negation of the generated handles
+
+    private static boolean bit(int shift, long assignment) {
+        return ((assignment >>> shift) & 1) != 0;
+    }
+
+    private static boolean not(boolean val) {
+        return !val;
+    }
+}
@@ -0,0 +1,171 @@
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * @author Richard Luong
+ * Instrumentation of the time spent in each phase of creating a truth table, along with counters of the rows
+ * evaluated, parse tree nodes built and bytes of truth table rendered. Metrics are disabled by default, and while
+ * disabled each phase only reads a single flag before doing its work. Recording only happens once per phase or
+ * per batch of rows, never inside the loops over rows or tokens, so enabling them adds very little to the work
+ * being measured. The metrics can be read through this class or through JMX once registerMBean() is called.
+ */
+public class Metrics implements MetricsMXBean {
+    /**
+     * Phases of going from an expression to a rendered truth table
+     */
+    public enum Phase {
+        TOKENIZE, VALIDATE, BUILD_TREE, EVALUATE, RENDER
+    }
+
+    // Name the MBean is registered under
+    public static final String OBJECT_NAME = "TruthTableGen:type=Metrics";
+
+    // Created when the class is initialised so every thread sees the same instance
+    private static final Metrics instance = new Metrics();
+
+    private volatile boolean enabled = false;
+    private final EnumMap<Phase, LongAdder> phaseNanos = new EnumMap<>(Phase.class);
+    private final EnumMap<Phase, LongAdder> phaseCalls = new EnumMap<>(Phase.class);
+    private final LongAdder rowsEvaluated = new LongAdder();
+    private final LongAdder nodesBuilt = new LongAdder();
+    private final LongAdder bytesRendered = new LongAdder();
+
+    // Singleton class so class should not be instantiated
+    private Metrics() {
+        for (Phase phase: Phase.values()) {
+            phaseNanos.put(phase, new LongAdder());
+            phaseCalls.put(phase, new LongAdder());
+        }
+    }
+
+    // Only create and retrieve 1 instance of the Metrics
+    public static Metrics getInstance() {
+        return instance;
+    }
+
+    /**
+     * Register the metrics with the platform MBean server so they can be read with any JMX client. Registering more
+     * than once does nothing
+     */
+    public static void registerMBean() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.registerMBean(instance, new ObjectName(OBJECT_NAME));
+        } catch (InstanceAlreadyExistsException e) {
+            // Already registered
+        } catch (JMException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Start timing a phase
+     * @return the start time of the phase, or 0 if metrics are disabled
+     */
+    long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Finish timing a phase. Does nothing if the metrics were disabled when the phase started
+     * @param phase Phase that finished
+     * @param start Value returned by start() when the phase started
+     */
+    void stop(Phase phase, long start) {
+        if (start != 0) {
+            phaseNanos.get(phase).add(System.nanoTime() - start);
+            phaseCalls.get(phase).increment();
+        }
+    }
+
+    // Counters, which are only added to while metrics are enabled
+
+    void addRowsEvaluated(long rows) {
+        if (enabled) rowsEvaluated.add(rows);
+    }
+
+    void addNodesBuilt(long nodes) {
+        if (enabled) nodesBuilt.add(nodes);
+    }
+
+    void addBytesRendered(long bytes) {
+        if (enabled) bytesRendered.add(bytes);
+    }
+
+    /**
+     * @param phase Phase of creating a truth table
+     * @return Total nanoseconds spent in the phase
+     */
+    public long getNanos(Phase phase) {
+        return phaseNanos.get(phase).sum();
+    }
+
+    /**
+     * @param phase Phase of creating a truth table
+     * @return Number of times the phase was run
+     */
+    public long getCalls(Phase phase) {
+        return phaseCalls.get(phase).sum();
+    }
+
+    @Override
+    public Map<String, Long> getPhaseNanos() {
+        Map<String, Long> nanos = new LinkedHashMap<>();
+        for (Phase phase: Phase.values()) {
+            nanos.put(phase.name(), getNanos(phase));
+        }
+        return nanos;
+    }
+
+    @Override
+    public Map<String, Long> getPhaseCalls() {
+        Map<String, Long> calls = new LinkedHashMap<>();
+        for (Phase phase: Phase.values()) {
+            calls.put(phase.name(), getCalls(phase));
+        }
+        return calls;
+    }
+
+    @Override
+    public long getRowsEvaluated() {
+        return rowsEvaluated.sum();
+    }
+
+    @Override
+    public long getNodesBuilt() {
+        return nodesBuilt.sum();
+    }
+
+    @Override
+    public long getBytesRendered() {
+        return bytesRendered.sum();
+    }
+
+    @Override
+    public void reset() {
+        for (Phase phase: Phase.values()) {
+            phaseNanos.get(phase).reset();
+            phaseCalls.get(phase).reset();
+        }
+        rowsEvaluated.reset();
+        nodesBuilt.reset();
+        bytesRendered.reset();
+    }
+}
@@ -0,0 +1,49 @@
+import java.util.Map;
+
+/**
+ * @author Richard Luong
+ * Management interface of Metrics that is exposed through JMX. Times are in nanoseconds and each phase is keyed by
+ * the name of its Metrics.Phase.
+ */
+public interface MetricsMXBean {
+    /**
+     * @return true if metrics are being recorded
+     */
+    boolean isEnabled();
+
+    /**
+     * Turn recording metrics on or off. Metrics already recorded are kept
+     * @param enabled true to record metrics
+     */
+    void setEnabled(boolean enabled);
+
+    /**
+     * @return Total time spent in each phase
+     */
+    Map<String, Long> getPhaseNanos();
+
+    /**
+     * @return Number of times each phase was run
+     */
+    Map<String, Long> getPhaseCalls();
+
+    /**
+     * @return Number of truth table rows evaluated in bulk
+     */
+    long getRowsEvaluated();
+
+    /**
+     * @return Number of distinct parse tree nodes built
+     */
+    long getNodesBuilt();
+
+    /**
+     * @return Number of bytes of truth table rendered
+     */
+    long getBytesRendered();
+
+    /**
+     * Set every time and counter back to 0
+     */
+    void reset();
+}
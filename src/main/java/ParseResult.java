@@ -0,0 +1,50 @@
+/**
+ * @author Richard Luong
+ * Result of parsing a single expression in a batch with Parser.parseAll(). Holds the parse tree if the expression
+ * was valid, otherwise the reason why it wasn't.
+ */
+public class ParseResult {
+    private String inputStr;
+    private ValidExprStatus status;
+    private ParseTreeRoot tree;
+
+    /**
+     * Constructor
+     * @param inputStr Expression that was parsed
+     * @param status Whether the expression was valid or not
+     * @param tree Parse tree of the expression, null if it wasn't valid
+     */
+    ParseResult(String inputStr, ValidExprStatus status, ParseTreeRoot tree) {
+        this.inputStr = inputStr;
+        this.status = status;
+        this.tree = tree;
+    }
+
+    /**
+     * @return Expression that was parsed
+     */
+    public String getInputStr() {
+        return inputStr;
+    }
+
+    /**
+     * @return ValidExprStatus.VALID_EXPR if valid, otherwise another enum detailing why it was invalid
+     */
+    public ValidExprStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * @return true if the expression was valid and has a parse tree
+     */
+    public boolean isValid() {
+        return status == ValidExprStatus.VALID_EXPR;
+    }
+
+    /**
+     * @return Parse tree of the expression, or null if it wasn't valid
+     */
+    public ParseTreeRoot getTree() {
+        return tree;
+    }
+}
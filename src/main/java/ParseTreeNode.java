@@ -1,4 +1,5 @@
-import java.util.List;
+import java.util.ArrayDeque;
+import java.util.Deque;
 
 /**
  * @author Richard Luong
@@ -7,20 +8,23 @@ import java.util.List;
  */
 public class ParseTreeNode {
     private Token currToken;
+    private int varId;
     private ParseTreeNode leftNode;
     private ParseTreeNode rightNode;
     private String exprStr;
 
     /**
-     * Constructor: Assumes left and right are null
+     * Constructor: Node for a variable so assumes left and right are null
      * @param currToken Token the node holds
-     * @param tokens List of tokens that make up the current expression
+     * @param varId Id of the variable in the VariableTable of the expression
+     * @param name Name of the variable
      */
-    ParseTreeNode(Token currToken, List<Token> tokens) {
+    ParseTreeNode(Token currToken, int varId, String name) {
         this.currToken = currToken;
+        this.varId = varId;
         this.leftNode = null;
         this.rightNode = null;
-        setExprStr(tokens);
+        this.exprStr = name;
     }
 
     /**
@@ -28,25 +32,61 @@ public class ParseTreeNode {
      * @param currToken Token the node holds
      * @param leftNode Node connected to the left branch of this node
      * @param rightNode Node connected to the right branch of this node
-     * @param tokens List of tokens that make up the current expression
      */
-    ParseTreeNode(Token currToken, ParseTreeNode leftNode, ParseTreeNode rightNode, List<Token> tokens) {
+    ParseTreeNode(Token currToken, ParseTreeNode leftNode, ParseTreeNode rightNode) {
         this.currToken = currToken;
+        this.varId = -1;
         this.leftNode = leftNode;
         this.rightNode = rightNode;
-        setExprStr(tokens);
+        // The string is only created when it is asked for
+        this.exprStr = null;
     }
 
     /**
-     * Iterates through the list of tokens to create a string representing the expression
-     * @param tokens List of tokens representing a propositional logic expression
+     * Append the string representing the expression of this node to a builder. Any child that is not a variable is
+     * grouped by parentheses. Children whose strings were already created are copied rather than rendered again, but
+     * no string is kept for the children rendered here so the only string created is the one being built. The tree
+     * is walked with an explicit stack so deeply nested expressions can't overflow the call stack
+     * @param stringBuilder Builder of the string of the expression
      */
-    private void setExprStr(List<Token> tokens) {
-        StringBuilder stringBuilder = new StringBuilder();;
-        for (Token currToken: tokens) {
-            stringBuilder.append(currToken.getStringRep());
+    private void appendExprStr(StringBuilder stringBuilder) {
+        // Holds the nodes still to be rendered and the parentheses and operators between them, in reverse order
+        Deque<Object> pending = new ArrayDeque<>();
+        pending.push(this);
+        while (!pending.isEmpty()) {
+            Object next = pending.pop();
+            if (next instanceof String) {
+                stringBuilder.append((String) next);
+                continue;
+            }
+            ParseTreeNode node = (ParseTreeNode) next;
+            String str = node.exprStr;
+            if (str != null) {
+                stringBuilder.append(str);
+                continue;
+            }
+            pushOperand(pending, node.rightNode);
+            pending.push(node.currToken.getStringRep());
+            // Special case for NOT since it doesn't have a left node
+            if (node.currToken != Token.NOT) {
+                pushOperand(pending, node.leftNode);
+            }
+        }
+    }
+
+    /**
+     * Helper method for appendExprStr: Push an operand to be rendered, adding parentheses if it is a sub expression
+     * @param pending Stack of what is still to be rendered
+     * @param operand Left or right node
+     */
+    private static void pushOperand(Deque<Object> pending, ParseTreeNode operand) {
+        if (Token.isVar(operand.getCurrToken())) {
+            pending.push(operand);
+        } else {
+            pending.push(")");
+            pending.push(operand);
+            pending.push("(");
         }
-        exprStr = stringBuilder.toString();
     }
 
     /**
@@ -56,6 +96,13 @@ public class ParseTreeNode {
         return currToken;
     }
 
+    /**
+     * @return Id of the variable held in the node or -1 if the node holds an operator
+     */
+    public int getVarId() {
+        return varId;
+    }
+
     /**
      * @return Node connected to left branch of this node
      */
@@ -71,9 +118,20 @@ public class ParseTreeNode {
     }
 
     /**
+     * Get the string representing the expression for this node and its children. The string is created the first time
+     * it is asked for, so building and evaluating a tree never creates the strings of its sub expressions
      * @return String representing the expression for this node and its children
      */
     public String getExprStr() {
-        return exprStr;
+        // Strings are immutable so a thread seeing the field set always sees the whole string. At worst two threads
+        // both create the same string
+        String str = exprStr;
+        if (str == null) {
+            StringBuilder stringBuilder = new StringBuilder();
+            appendExprStr(stringBuilder);
+            str = stringBuilder.toString();
+            exprStr = str;
+        }
+        return str;
     }
 }
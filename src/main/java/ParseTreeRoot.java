@@ -1,109 +1,182 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.math.BigInteger;
 import java.util.*;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  *
  * @author Richard Luong
  * Root of a Parse Tree representing a propositional logic expression and enables for the
- * expression to be evaluated recursively to generate a truth table for the expression
+ * expression to be evaluated recursively to generate a truth table for the expression.
+ * A tree can be shared between threads since the parts of the truth table that are only generated once they are
+ * asked for are generated while holding the lock of the tree.
  *
  */
 public class ParseTreeRoot {
-    private ParseTreeNode root;
-    private Set<Token> variables;
+    // Largest number of variables that the rows of the truth table can be numbered for with a long, which is the limit
+    // for going through rows or pages of rows without storing them
+    public static final int MAX_VARIABLES = 62;
+    // Largest number of variables that the truth table or result column can be stored for, since the words of a bit
+    // column are indexed by an int
+    public static final int MAX_COLUMN_VARIABLES = 36;
+    // Queries on expressions with more variables than this use the SAT solver instead of going through every row
+    public static final int SOLVER_THRESHOLD = 24;
+
+    private final ParseTreeNode root;
+    private final VariableTable variables;
+    private final CompiledExpr compiledExpr;
+    private long[] resultColumn;
     private ArrayList<Boolean> results;
-    private List<List<String>> truthTable;
-    private String truthTableStr;
+    private TruthTable truthTable;
+    // Used while building the tree so that structurally identical sub expressions share one node
+    private HashMap<List<Object>, ParseTreeNode> uniqueNodes;
+    // Whether an operator node has more than one parent
+    private boolean hasSharedNodes;
 
     /**
-     * Constructor
-     * @param tokens List of tokens representing a propositional logic expression
+     * Constructor: The truth table is only generated once it is asked for
+     * @param tokens List of tokens representing a propositional logic expression. Must be a TokenList if it contains
+     *               any Token.IDENT so that the names of the identifiers are known
      */
     ParseTreeRoot(List<Token> tokens) {
+        Metrics metrics = Metrics.getInstance();
+        long start = metrics.start();
+        this.variables = new VariableTable();
+        this.uniqueNodes = new HashMap<>();
         this.root = makeParseTree(tokens);
-        this.variables = new LinkedHashSet<>();
-        for (Token currToken: tokens) {
-            if (Token.isVar(currToken)) {
-                variables.add(currToken);
-            }
-        }
-        generateTruthTable();
-        setTruthTableStr();
+        metrics.addNodesBuilt(uniqueNodes.size());
+        this.uniqueNodes = null;
+        this.compiledExpr = CompiledExpr.compile(root, variables.size());
+        metrics.stop(Metrics.Phase.BUILD_TREE, start);
     }
 
     /**
-     * Recursively build a parse tree representing the prop logic expression by splitting the list of
-     * tokens into two based on the operator not surrounded by parentheses
+     * Build a parse tree representing the prop logic expression in a single pass over the tokens. Operators wait on
+     * a stack until every operator with more precedence to their right has been applied, so each token is pushed and
+     * popped at most once. Operators with the same precedence are right associative. Variables are interned in the
+     * order they first appear and nodes are hash consed so a sub expression that appears more than once is a single
+     * node with more than one parent, which makes the tree a DAG
+     * @precondition The tokens must be a valid expression
      * @param tokens List of tokens representing the prop logic expression
-     * @return a ParseTreeNode and eventually the last node returned will be the root
+     * @return the root node of the tree
      */
     private ParseTreeNode makeParseTree(List<Token> tokens) {
-        // Base cases
-        if (tokens.isEmpty()) return null;
-        if (tokens.size() == 1) {
-            return new ParseTreeNode(tokens.get(0), tokens);
-        }
-        // Recursive cases
-        int splitIndex = 0;
-        Token currOperator = Token.UNKNOWN;
-        while (currOperator == Token.UNKNOWN) {
-            Stack<Token> parenStack = new Stack<>();
-            // Find the operator that has the most precedence that isn't in a sub expression
-            for (int i = 0; i < tokens.size(); i++) {
-                Token currToken = tokens.get(i);
-                // Use parenStack so that we ignore operators that are in sub expressions
-                if (currToken == Token.L_PAREN) {
-                    parenStack.add(Token.L_PAREN);
-                } else if (currToken == Token.R_PAREN) {
-                    parenStack.pop();
-                } else if (Token.isOperator(currToken) && parenStack.isEmpty()) {
-                    currOperator = currToken;
-                    splitIndex = i;
-                    break;
-                } else if (Token.isVar(currToken) && tokens.size() == 1) {
-                    // Special case where a variable would have been nested at least 1 pair of parenthesis
-                    return new ParseTreeNode(currToken, tokens);
+        ArrayDeque<ParseTreeNode> nodes = new ArrayDeque<>();
+        ArrayDeque<Token> operators = new ArrayDeque<>();
+        int identCount = 0;
+        for (Token currToken: tokens) {
+            if (currToken == Token.L_PAREN || currToken == Token.NOT) {
+                // Wait until the sub expression or the operand of the NOT has been built
+                operators.push(currToken);
+            } else if (currToken == Token.R_PAREN) {
+                while (operators.peek() != Token.L_PAREN) {
+                    applyOperator(operators.pop(), nodes);
                 }
-            }
-            /* Since we formatted the expression so that sub expressions are explicitly grouped via parentheses,
-             * we can assume that if no operator was found then the current expression must be surrounded by at
-             * least one pair of parentheses at the moment so take them out */
-            if (currOperator == Token.UNKNOWN) {
-                tokens = tokens.subList(1, tokens.size()-1);
+                operators.pop();
+            } else if (Token.isConnective(currToken)) {
+                // Apply the operators on the left that have more precedence before this one
+                while (!operators.isEmpty() && operators.peek() != Token.L_PAREN
+                        && operators.peek().getPrecedenceVal() < currToken.getPrecedenceVal()) {
+                    applyOperator(operators.pop(), nodes);
+                }
+                operators.push(currToken);
+            } else {
+                String name;
+                if (currToken == Token.IDENT) {
+                    if (!(tokens instanceof TokenList))
+                        throw new IllegalArgumentException("Identifiers require a TokenList holding their names");
+                    name = ((TokenList) tokens).getIdentifier(identCount++);
+                } else {
+                    name = currToken.getStringRep();
+                }
+                nodes.push(uniqueNode(new ParseTreeNode(currToken, variables.intern(name), name)));
             }
         }
-        // Split the token list on the operator found and recursively build the rest of the nodes
-        // Special case for NOT since it doesn't require a left node
-        if (currOperator == Token.NOT) {
-            ParseTreeNode rightNode = makeParseTree(tokens.subList(1, tokens.size()));
-            return new ParseTreeNode(currOperator, null, rightNode, tokens);
-        } else {
-            ParseTreeNode leftNode = makeParseTree(tokens.subList(0, splitIndex));
-            ParseTreeNode rightNode = makeParseTree(tokens.subList(splitIndex+1, tokens.size()));
-            return new ParseTreeNode(currOperator, leftNode, rightNode, tokens);
+        while (!operators.isEmpty()) {
+            applyOperator(operators.pop(), nodes);
+        }
+        return nodes.pop();
+    }
+
+    /**
+     * Helper method for makeParseTree: Replace the operands of an operator on the node stack with a node for the
+     * operator. Special case for NOT since it only has a right node
+     * @param operator Operator to apply
+     * @param nodes Stack of nodes that have been built but don't have a parent yet
+     */
+    private void applyOperator(Token operator, Deque<ParseTreeNode> nodes) {
+        ParseTreeNode rightNode = nodes.pop();
+        ParseTreeNode leftNode = (operator == Token.NOT) ? null : nodes.pop();
+        nodes.push(uniqueNode(new ParseTreeNode(operator, leftNode, rightNode)));
+    }
+
+    /**
+     * Get the node already in the tree that is structurally identical to the given node, if there is one. Since the
+     * children of every node are already unique, two nodes are identical if they hold the same token and variable
+     * and point to the same children
+     * @param node Node that has just been built
+     * @return the existing identical node, otherwise the given node
+     */
+    private ParseTreeNode uniqueNode(ParseTreeNode node) {
+        List<Object> key = Arrays.asList(node.getCurrToken(), node.getVarId(), node.getLeftNode(),
+                node.getRightNode());
+        ParseTreeNode existingNode = uniqueNodes.get(key);
+        if (existingNode != null) {
+            if (!Token.isVar(node.getCurrToken())) hasSharedNodes = true;
+            return existingNode;
         }
+        uniqueNodes.put(key, node);
+        return node;
     }
 
     /**
      * Evaluate each sub expression in the tree to return either a true or false value representing the value
      * of the expression with the specified values for the variables in the expression
      * @param currNode Current sub expression to evaluate
-     * @param valMappings Ordered HashMap containing the value of each variable
+     * @param valMappings Value of each variable indexed by the id of the variable
+     * @param currRow List of string representing truth values for each sub expression/expression in the truth table.
+     *                A sub expression shared by more than one parent is only added the first time it is reached, so
+     *                the values line up with the columns of getHeader()
+     * @return a true or false value for the current expression
+     */
+    public boolean evalTree(ParseTreeNode currNode, boolean[] valMappings, List<String> currRow) {
+        // Only expressions with shared sub expressions need to remember the nodes they have evaluated
+        Map<ParseTreeNode, Boolean> evaluated = hasSharedNodes ? new IdentityHashMap<>() : null;
+        return evalTree(currNode, valMappings, currRow, evaluated);
+    }
+
+    /**
+     * Helper method for evalTree: Evaluate a sub expression, reusing the value of a shared sub expression that has
+     * already been evaluated instead of adding it to currRow again
+     * @param currNode Current sub expression to evaluate
+     * @param valMappings Value of each variable indexed by the id of the variable
      * @param currRow List of string representing truth values for each sub expression/expression in the truth table
+     * @param evaluated Value of each operator node already evaluated, or null if no node has more than one parent
      * @return a true or false value for the current expression
      */
-    public boolean evalTree(ParseTreeNode currNode, LinkedHashMap<Token, Boolean> valMappings, List<String> currRow) {
+    private boolean evalTree(ParseTreeNode currNode, boolean[] valMappings, List<String> currRow,
+                             Map<ParseTreeNode, Boolean> evaluated) {
         boolean truthVal;
         /* Base case: If the current symbol is a variable. Don't need to add to currRow since that is handled
          * already outside of this function*/
         if (Token.isVar(currNode.getCurrToken())) {
-            return valMappings.get(currNode.getCurrToken());
+            return valMappings[currNode.getVarId()];
+        } else if (evaluated != null && evaluated.containsKey(currNode)) {
+            return evaluated.get(currNode);
         } else {
             // Recursive case: Evaluate the left and right hand side of the current node
             boolean leftVal = true;
             if (currNode.getCurrToken() != Token.NOT) {
-                leftVal = evalTree(currNode.getLeftNode(), valMappings, currRow);
+                leftVal = evalTree(currNode.getLeftNode(), valMappings, currRow, evaluated);
             }
-            boolean rightVal = evalTree(currNode.getRightNode(), valMappings, currRow);
+            boolean rightVal = evalTree(currNode.getRightNode(), valMappings, currRow, evaluated);
             // Evaluate the current operator
             switch (currNode.getCurrToken()) {
                 case AND:
@@ -126,6 +199,7 @@ public class ParseTreeRoot {
                     truthVal = false;
             }
         }
+        if (evaluated != null) evaluated.put(currNode, truthVal);
         String truthValStr = (truthVal == true) ? "T" : "F";
         currRow.add(truthValStr);
         return truthVal;
@@ -133,127 +207,693 @@ public class ParseTreeRoot {
 
     /**
      * Generates the entire truth table for the expression including the sub expressions and their truth values.
-     * Stores the truth table and as a List of List of Strings and stores the results of each row as a list of
-     * booleans.
+     * Stores the truth table as a bit column for each variable and sub expression, with the header kept separately.
+     * See rows() for going through the truth table without storing all of it.
+     * @throws IllegalStateException if the expression has more than MAX_COLUMN_VARIABLES variables
      */
-    public void generateTruthTable() {
-        // Generate the header of the truth table
-        truthTable = new ArrayList<>();
-        ArrayList<String> header = new ArrayList<>();
-        for (Token currVar: variables) {
-            header.add(""+currVar.getCharRep());
-        }
-        getTruthTableHeader(root, header);
-        truthTable.add(header);
+    public synchronized void generateTruthTable() {
+        generateTruthTable(1);
+    }
+
+    /**
+     * Generates the entire truth table in the same way as generateTruthTable() but splits the words of the columns
+     * between the threads of a ForkJoinPool. Each thread fills in its own words so the truth table is the same as
+     * when it is generated on a single thread
+     * @param parallelism Number of threads to use, 1 or less generates the truth table on the calling thread
+     * @throws IllegalStateException if the expression has more than MAX_COLUMN_VARIABLES variables
+     */
+    public synchronized void generateTruthTable(int parallelism) {
         // Generate the truth values for all subexpressions and the main expression
-        results = new ArrayList<>();
-        LinkedHashMap<Token, Boolean> varMappings = new LinkedHashMap<>();
-        ArrayList<Token> varList = new ArrayList<>();
-        for (Token currVar: variables) {
-            varList.add(currVar);
-        }
-        /* Add the variables to the Ordered hashmap in reverse order to allow table to
-         * be presented in the standard form in terms of each variable value */
-        for (int i = varList.size()-1; i >= 0; i--) {
-            varMappings.put(varList.get(i), false);
-        }
-        double rows = Math.pow(2, variables.size());
-        // Use a binary number set to 0 and increment for every new row
-        byte currBinNum = (byte) 0b00000000;
-        for (int i = 0; i < rows; i++) {
-            LinkedList<String> currRow = new LinkedList<>();
-            Iterator<Token> varIt = varMappings.keySet().iterator();
-            int shiftCount = 0;
-            while (varIt.hasNext()) {
-                Token varToChange = varIt.next();
-                /* Use a mask and bitshifting to get the next value of a variable according to the bits in the binary
-                 * number */
-                if ((currBinNum & (1 << shiftCount)) != 0) {
-                    varMappings.put(varToChange, true);
-                    currRow.add("T");
+        truthTable = new TruthTable(createHeader(), compiledExpr.evalColumns(parallelism), getNumRows());
+        resultColumn = truthTable.getResultColumn();
+    }
+
+    /**
+     * Generates the entire truth table in the same way as generateTruthTable() but goes through the rows in Gray code
+     * order, where only one variable changes from one row to the next and only the sub expressions above it are
+     * evaluated again. Each row is put back in its place in the standard order so the truth table is the same.
+     * This is not a faster way to build the table: putting the rows back writes every column one bit at a time for
+     * every row, while generateTruthTable() evaluates 64 rows at a time. It is meant for callers that want the
+     * updates from one row to the next, which grayCodeRowIterator() gives without building any columns
+     * @throws IllegalStateException if the expression has more than MAX_COLUMN_VARIABLES variables
+     */
+    public synchronized void generateTruthTableGrayCode() {
+        long start = Metrics.getInstance().start();
+        long[][] columns = new GrayCodeEvaluator(compiledExpr, compiledExpr.columnRows()).evalColumns();
+        Metrics.getInstance().stop(Metrics.Phase.EVALUATE, start);
+        truthTable = new TruthTable(createHeader(), columns, getNumRows());
+        resultColumn = truthTable.getResultColumn();
+    }
+
+    /**
+     * Iterate over the rows of the truth table in Gray code order, where exactly one variable changes from one row to
+     * the next. The value of every sub expression is kept from the previous row and only the sub expressions above
+     * the variable that changed are evaluated again. getRowNum() of each row is its position in the standard order.
+     * The same TruthTableRow is returned by every call to next()
+     * @return an iterator over every row of the truth table in Gray code order
+     */
+    public Iterator<TruthTableRow> grayCodeRowIterator() {
+        return new GrayCodeEvaluator(compiledExpr, getNumRows());
+    }
+
+    /**
+     * @return a sequential stream over every row of the truth table in Gray code order. See grayCodeRowIterator()
+     */
+    public Stream<TruthTableRow> grayCodeRows() {
+        Spliterator<TruthTableRow> spliterator = Spliterators.spliterator(grayCodeRowIterator(), getNumRows(),
+                Spliterator.ORDERED | Spliterator.SIZED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false);
+    }
+
+    /**
+     * Iterate over the rows of the truth table in order without storing them. The same TruthTableRow is returned by
+     * every call to next() and is refilled every 64 rows so the memory used doesn't grow with the number of rows
+     * @return an iterator over every row of the truth table
+     */
+    public Iterator<TruthTableRow> rowIterator() {
+        return new RowIterator(0, getNumRows());
+    }
+
+    /**
+     * @return a sequential stream over every row of the truth table. See rowIterator() for how the rows are reused
+     */
+    public Stream<TruthTableRow> rows() {
+        Spliterator<TruthTableRow> spliterator = Spliterators.spliterator(rowIterator(), getNumRows(),
+                Spliterator.ORDERED | Spliterator.SIZED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false);
+    }
+
+    /**
+     * Get a page of rows of the truth table without generating the rest of it. Row i holds the binary expansion of i
+     * across the variables, so only the words of 64 rows holding the page are evaluated and the time taken grows
+     * with the size of the page rather than the size of the truth table. Uses the truth table if it has already been
+     * generated
+     * @param offset First row of the page
+     * @param limit Largest number of rows in the page
+     * @return List with "T" or "F" for every column of each row in the page in the same form as
+     * getTruthTableAsList(), without the header. Empty if the offset is past the last row
+     * @throws IllegalArgumentException if the offset or limit is negative
+     */
+    public List<List<String>> getRows(long offset, int limit) {
+        if (offset < 0 || limit < 0)
+            throw new IllegalArgumentException("Offset and limit can't be negative");
+        long numRows = getNumRows();
+        List<List<String>> page = new ArrayList<>();
+        if (offset >= numRows) return page;
+        long toRow = Math.min(numRows, offset + limit);
+        TruthTable table;
+        synchronized (this) {
+            table = truthTable;
+        }
+        if (table == null) {
+            Iterator<TruthTableRow> it = new RowIterator(offset, toRow);
+            while (it.hasNext()) {
+                page.add(it.next().toStringList());
+            }
+            return page;
+        }
+        for (long row = offset; row < toRow; row++) {
+            List<String> currRow = new ArrayList<>(table.getNumColumns());
+            for (int column = 0; column < table.getNumColumns(); column++) {
+                currRow.add(table.get(row, column) ? "T" : "F");
+            }
+            page.add(currRow);
+        }
+        return page;
+    }
+
+    /**
+     * @return the header row of the truth table, the variables followed by every sub expression, without generating
+     * the truth table
+     */
+    public List<String> getHeader() {
+        TruthTable table;
+        synchronized (this) {
+            table = truthTable;
+        }
+        return (table != null) ? table.getHeader() : createHeader();
+    }
+
+    /**
+     * Iterator over a range of rows in the truth table which evaluates the compiled expression one word of 64 rows
+     * at a time into a single reused TruthTableRow
+     */
+    private class RowIterator implements Iterator<TruthTableRow> {
+        private long nextRow;
+        private long toRow;
+        private long loadedWord;
+        private long[] stack;
+        private TruthTableRow row;
+
+        /**
+         * Constructor
+         * @param fromRow First row to iterate over
+         * @param toRow Row to stop at, which is not included
+         */
+        RowIterator(long fromRow, long toRow) {
+            this.nextRow = fromRow;
+            this.toRow = toRow;
+            this.loadedWord = -1;
+            this.stack = new long[compiledExpr.getMaxStackSize()];
+            this.row = new TruthTableRow(variables.size() + compiledExpr.getNumOperators());
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextRow < toRow;
+        }
+
+        @Override
+        public TruthTableRow next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            long word = nextRow >>> 6;
+            if (word != loadedWord) {
+                compiledExpr.evalWordColumns(word, stack, row.getColumnWords());
+                loadedWord = word;
+                // Count the rows of the word that will be iterated over
+                Metrics.getInstance().addRowsEvaluated(Math.min((word + 1) << 6, toRow) - nextRow);
+            }
+            row.setRowNum(nextRow++);
+            return row;
+        }
+    }
+
+    /**
+     * Get the truth value of the main expression for every row in the same way as getResultColumn() but skipping the
+     * operands of AND, OR and IMPL for the rows where the other operand already decides the value, with the cheaper
+     * operand evaluated first. Faster for expressions where most sub expressions are decided early, such as long
+     * chains of AND or OR
+     * @return bit column holding the value of the main expression for each row
+     * @throws IllegalStateException if the expression has more than MAX_COLUMN_VARIABLES variables
+     */
+    public synchronized long[] getResultColumnShortCircuit() {
+        if (resultColumn == null) {
+            resultColumn = compiledExpr.evalResultsShortCircuit();
+        }
+        return resultColumn;
+    }
+
+    /**
+     * Iterate over every assignment of the variables that makes the expression true, in row order
+     * @return an iterator over the satisfying assignments, see modelIterator(long, long)
+     */
+    public PrimitiveIterator.OfLong modelIterator() {
+        return modelIterator(0, Long.MAX_VALUE);
+    }
+
+    /**
+     * Iterate over the assignments of the variables that make the expression true, in row order. An assignment is
+     * its row number, so the first variable is its most significant bit. Rows are evaluated 64 at a time and only the
+     * set bits of each word of the result are gone through, so rows where the expression is false are never visited.
+     * Uses the result column if it has already been evaluated, otherwise nothing is stored apart from the word being
+     * gone through
+     * @param offset Number of satisfying assignments to skip
+     * @param limit Largest number of satisfying assignments to iterate over
+     * @return an iterator over the satisfying assignments
+     * @throws IllegalArgumentException if the offset or limit is negative
+     */
+    public PrimitiveIterator.OfLong modelIterator(long offset, long limit) {
+        if (offset < 0 || limit < 0)
+            throw new IllegalArgumentException("Offset and limit can't be negative");
+        return new ModelIterator(offset, limit);
+    }
+
+    /**
+     * @return a sequential stream over every satisfying assignment in row order, see modelIterator(long, long)
+     */
+    public LongStream models() {
+        return models(0, Long.MAX_VALUE);
+    }
+
+    /**
+     * @param offset Number of satisfying assignments to skip
+     * @param limit Largest number of satisfying assignments in the stream
+     * @return a sequential stream over the satisfying assignments in row order, see modelIterator(long, long)
+     */
+    public LongStream models(long offset, long limit) {
+        Spliterator.OfLong spliterator = Spliterators.spliteratorUnknownSize(modelIterator(offset, limit),
+                Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.SORTED | Spliterator.NONNULL);
+        return StreamSupport.longStream(spliterator, false);
+    }
+
+    /**
+     * Iterator over the rows where the main expression is true, which loads one word of the result column at a time
+     * and takes its set bits from the lowest up
+     */
+    private class ModelIterator implements PrimitiveIterator.OfLong {
+        private long[] column;
+        private long rows;
+        private long lastWord;
+        private long word;
+        // Satisfying rows of the loaded word that haven't been gone through yet
+        private long bits;
+        private long toSkip;
+        private long remaining;
+        private long[] stack;
+        private long[] columnWords;
+
+        /**
+         * Constructor
+         * @param offset Number of satisfying assignments to skip
+         * @param limit Largest number of satisfying assignments to iterate over
+         */
+        ModelIterator(long offset, long limit) {
+            synchronized (ParseTreeRoot.this) {
+                this.column = resultColumn;
+            }
+            this.rows = getNumRows();
+            this.lastWord = (rows - 1) >>> 6;
+            this.word = -1;
+            this.toSkip = offset;
+            this.remaining = limit;
+            if (column == null) {
+                this.stack = new long[compiledExpr.getMaxStackSize()];
+                this.columnWords = new long[variables.size() + compiledExpr.getNumOperators()];
+            }
+            advance();
+        }
+
+        /**
+         * Load words until one has a satisfying row that isn't skipped. Words with no more satisfying rows than are
+         * left to skip are skipped whole
+         */
+        private void advance() {
+            while (bits == 0 && remaining > 0 && word < lastWord) {
+                word++;
+                bits = loadWord();
+                int count = Long.bitCount(bits);
+                if (count <= toSkip) {
+                    toSkip -= count;
+                    bits = 0;
                 } else {
-                    varMappings.put(varToChange, false);
-                    currRow.add("F");
+                    // Clear the lowest set bits that are skipped
+                    for (; toSkip > 0; toSkip--) {
+                        bits &= bits - 1;
+                    }
                 }
-                shiftCount++;
             }
-            /* Need to reverse the current row of truth values mapped since we added the variables in reverse order
-             * to varMappings */
-            Collections.reverse(currRow);
-            currBinNum++;
-            // Add the result to the list
-            boolean output = evalTree(root, varMappings, currRow);
-            results.add(output);
-            truthTable.add(currRow);
+        }
+
+        /**
+         * @return the word of the result column at the current word, with the bits past the last row cleared
+         */
+        private long loadWord() {
+            long result;
+            if (column != null) {
+                result = column[(int) word];
+            } else {
+                result = compiledExpr.evalWordColumns(word, stack, columnWords);
+                Metrics.getInstance().addRowsEvaluated(Math.min((word + 1) << 6, rows) - (word << 6));
+            }
+            return (word == lastWord) ? result & BitColumns.tailMask(rows) : result;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return remaining > 0 && bits != 0;
+        }
+
+        @Override
+        public long nextLong() {
+            if (!hasNext()) throw new NoSuchElementException();
+            long row = (word << 6) + Long.numberOfTrailingZeros(bits);
+            // Clear the lowest set bit
+            bits &= bits - 1;
+            remaining--;
+            advance();
+            return row;
         }
     }
+
     /**
-     * Traverse the Parse tree to get all the sub expressions that make up the expression and add them to a list
-     * which makes up the header row of the truth table
-     * @param currNode Current node in the Parse tree
+     * Get the truth value of the main expression for every row without generating the rest of the truth table.
+     * Variables and sub expressions are never stored as columns so this uses a fraction of the memory of the full
+     * truth table
+     * @return bit column holding the value of the main expression for each row
+     * @throws IllegalStateException if the expression has more than MAX_COLUMN_VARIABLES variables
+     */
+    public synchronized long[] getResultColumn() {
+        if (resultColumn == null) {
+            resultColumn = compiledExpr.evalResults();
+        }
+        return resultColumn;
+    }
+
+    /**
+     * Get the truth value of the main expression for every row in the same way as getResultColumn() but splitting
+     * the words of the column between the threads of a ForkJoinPool
+     * @param parallelism Number of threads to use, 1 or less evaluates on the calling thread
+     * @return bit column holding the value of the main expression for each row
+     * @throws IllegalStateException if the expression has more than MAX_COLUMN_VARIABLES variables
+     */
+    public synchronized long[] getResultColumn(int parallelism) {
+        if (resultColumn == null) {
+            resultColumn = compiledExpr.evalResults(parallelism);
+        }
+        return resultColumn;
+    }
+    /**
+     * @return the header row of the truth table, the variables followed by every sub expression
+     */
+    private List<String> createHeader() {
+        ArrayList<String> header = new ArrayList<>();
+        header.addAll(variables.getNames());
+        getTruthTableHeader(root, header, Collections.newSetFromMap(new IdentityHashMap<ParseTreeNode, Boolean>()));
+        return header;
+    }
+
+    /**
+     * Traverse the Parse tree in post order to get all the sub expressions that make up the expression and add them
+     * to a list which makes up the header row of the truth table. Shared sub expressions only get one column. The
+     * traversal uses an explicit stack so deeply nested expressions can't overflow the call stack, and the string of
+     * each sub expression is created after the strings of its children so it copies theirs
+     * @param root Root node of the Parse tree
      * @param header List of expression/sub expressions for the header of the truth table
+     * @param visited Nodes that have already been added to the header
+     */
+    private void getTruthTableHeader(ParseTreeNode root, List<String> header, Set<ParseTreeNode> visited) {
+        ArrayDeque<ParseTreeNode> nodes = new ArrayDeque<>();
+        // Whether the children of the node at the same position in nodes have already been pushed
+        ArrayDeque<Boolean> expanded = new ArrayDeque<>();
+        nodes.push(root);
+        expanded.push(false);
+        while (!nodes.isEmpty()) {
+            ParseTreeNode currNode = nodes.pop();
+            if (expanded.pop()) {
+                header.add(currNode.getExprStr());
+                continue;
+            }
+            if (Token.isVar(currNode.getCurrToken()) || !visited.add(currNode)) continue;
+            // Come back to this node once its children have been added, left first
+            nodes.push(currNode);
+            expanded.push(true);
+            if (currNode.getRightNode() != null) {
+                nodes.push(currNode.getRightNode());
+                expanded.push(false);
+            }
+            if (currNode.getLeftNode() != null) {
+                nodes.push(currNode.getLeftNode());
+                expanded.push(false);
+            }
+        }
+    }
+
+
+    /**
+     * Check if the expression is true for at least one assignment of the variables. Stops at the first row where it
+     * is true without generating the truth table or any strings. Expressions with more than SOLVER_THRESHOLD variables
+     * are checked with the SatSolver instead, which finds any assignment rather than the first row
+     * @return a QueryResult holding the first row where the expression is true if it is satisfiable
+     */
+    public QueryResult isSatisfiable() {
+        if (variables.size() > SOLVER_THRESHOLD) return SatSolver.isSatisfiable(this);
+        long row = findRow(true);
+        return new QueryResult(row >= 0, row, getVariables());
+    }
+
+    /**
+     * Check if the expression is true for every assignment of the variables. Stops at the first row where it is false
+     * without generating the truth table or any strings. Uses the SatSolver in the same way as isSatisfiable()
+     * @return a QueryResult holding the first row where the expression is false if it is not a tautology
+     */
+    public QueryResult isTautology() {
+        if (variables.size() > SOLVER_THRESHOLD) return SatSolver.isTautology(this);
+        long row = findRow(false);
+        return new QueryResult(row < 0, row, getVariables());
+    }
+
+    /**
+     * Check if the expression is false for every assignment of the variables. Stops at the first row where it is true
+     * without generating the truth table or any strings. Uses the SatSolver in the same way as isSatisfiable()
+     * @return a QueryResult holding the first row where the expression is true if it is not a contradiction
+     */
+    public QueryResult isContradiction() {
+        if (variables.size() > SOLVER_THRESHOLD) return SatSolver.isContradiction(this);
+        long row = findRow(true);
+        return new QueryResult(row < 0, row, getVariables());
+    }
+
+    /**
+     * Count the assignments of the variables that make the expression true, adding up the set bits of each word of
+     * the result column without generating the truth table. Uses the result column if it has already been evaluated.
+     * Expressions with more than SOLVER_THRESHOLD variables are counted with a Bdd instead, since going through their
+     * rows would take hours once there are more than about 36 variables
+     * @return number of satisfying assignments
+     * @throws IllegalStateException if the expression has more than MAX_VARIABLES variables, see
+     * countModelsAsBigInteger()
+     */
+    public long countModels() {
+        return countModels(1);
+    }
+
+    /**
+     * Count the assignments of the variables that make the expression true in the same way as countModels() but
+     * splitting the words between the threads of a ForkJoinPool. Expressions counted with a Bdd ignore the parallelism
+     * @param parallelism Number of threads to use, 1 or less counts on the calling thread
+     * @return number of satisfying assignments
+     * @throws IllegalStateException if the expression has more than MAX_VARIABLES variables, see
+     * countModelsAsBigInteger()
+     */
+    public long countModels(int parallelism) {
+        long[] column;
+        synchronized (this) {
+            column = resultColumn;
+        }
+        if (column == null) {
+            if (variables.size() > MAX_VARIABLES)
+                throw new IllegalStateException("Counts of more than " + MAX_VARIABLES
+                        + " variables don't fit in a long, use countModelsAsBigInteger() instead");
+            if (variables.size() > SOLVER_THRESHOLD) return countModelsWithBdd().longValue();
+            return compiledExpr.countModels(parallelism);
+        }
+        return countColumn(column);
+    }
+
+    /**
+     * Count the assignments of the variables that make the expression true for any number of variables. Expressions
+     * with more than SOLVER_THRESHOLD variables are counted with a Bdd unless the result column has already been
+     * evaluated, in the same way as the other queries
+     * @return number of satisfying assignments
+     */
+    public BigInteger countModelsAsBigInteger() {
+        long[] column;
+        synchronized (this) {
+            column = resultColumn;
+        }
+        if (column != null) return BigInteger.valueOf(countColumn(column));
+        if (variables.size() > SOLVER_THRESHOLD) return countModelsWithBdd();
+        return BigInteger.valueOf(compiledExpr.countModels(1));
+    }
+
+    /**
+     * Helper method for the counts: Count the satisfying assignments with a Bdd
+     * @return number of satisfying assignments
+     */
+    private BigInteger countModelsWithBdd() {
+        Bdd bdd = new Bdd(variables.size());
+        return bdd.countModels(bdd.build(this));
+    }
+
+    /**
+     * Helper method for the counts: Add up the set bits of the result column
+     * @param column Result column
+     * @return number of rows where the main expression is true
+     */
+    private static long countColumn(long[] column) {
+        long count = 0;
+        for (long word: column) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * Helper method for the queries: Find the first row where the main expression has a value, using the result
+     * column if it has already been evaluated
+     * @param value Value of the main expression to look for
+     * @return the row number or -1 if there is no such row
+     */
+    private long findRow(boolean value) {
+        long[] column;
+        synchronized (this) {
+            column = resultColumn;
+        }
+        if (column == null) return compiledExpr.findRow(value, 0);
+        long rows = getNumRows();
+        for (int w = 0; w < column.length; w++) {
+            long word = value ? column[w] : ~column[w];
+            if (w == column.length - 1) word &= BitColumns.tailMask(rows);
+            if (word != 0) return ((long) w << 6) + Long.numberOfTrailingZeros(word);
+        }
+        return -1;
+    }
+
+    /**
+     * @param row Row in the truth table
+     * @return Truth value of the main expression in the row
      */
-    private void getTruthTableHeader(ParseTreeNode currNode, List<String> header) {
-        // Base case
-        if (currNode == null || Token.isVar(currNode.getCurrToken()))
-            return;
-        // Recursive case
-        getTruthTableHeader(currNode.getLeftNode(), header);
-        getTruthTableHeader(currNode.getRightNode(), header);
-        header.add(currNode.getExprStr());
+    public boolean getResult(long row) {
+        return BitColumns.get(getResultColumn(), row);
     }
 
+    /**
+     * @return the truth table stored by column, generating it if it hasn't been already
+     * @throws IllegalStateException if the expression has more than MAX_COLUMN_VARIABLES variables
+     */
+    public synchronized TruthTable getTruthTable() {
+        if (truthTable == null) generateTruthTable();
+        return truthTable;
+    }
+
+    /**
+     * @param idx Position of the column in the header of the truth table
+     * @return bit column of a variable or sub expression, which must not be modified
+     */
+    public long[] column(int idx) {
+        return getTruthTable().column(idx);
+    }
 
     /**
      * @return Truth value (boolean) for each row in the truth table for the main expression only
+     * @throws IllegalStateException if the expression has more than MAX_COLUMN_VARIABLES variables
      */
-    public ArrayList<Boolean> getTruthTableResults() {
+    public synchronized ArrayList<Boolean> getTruthTableResults() {
+        if (results == null) {
+            long[] column = getResultColumn();
+            results = new ArrayList<>();
+            for (long i = 0; i < getNumRows(); i++) {
+                results.add(BitColumns.get(column, i));
+            }
+        }
         return results;
     }
 
     /**
-     * @return List of List of strings containing each element of the entire truth table
+     * @return List of List of strings containing each element of the entire truth table. This is a view of the bit
+     * columns of getTruthTable() so the strings are only created as they are read
+     * @throws IllegalStateException if the expression has 31 or more variables, see TruthTable.asList()
      */
     public List<List<String>> getTruthTableAsList() {
-        return truthTable;
+        return getTruthTable().asList();
     }
 
     /**
      * Prints out the truth table to console
      */
     public void printTruthTable() {
-        System.out.println(truthTableStr);
+        try {
+            writeTruthTable((OutputStream) System.out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        System.out.println();
     }
 
     /**
-     * Sets the variable truthTableStr to store the entire truth table as a string which is formatted like a table
+     * Write the truth table formatted like a table to a channel. Rows are evaluated and written as they are needed
+     * so the truth table is never stored
+     * @param channel Channel to write to, which is not closed afterwards
+     * @throws IOException if the channel can't be written to
      */
-    private void setTruthTableStr() {
-        StringBuilder strBuilder = new StringBuilder();
-        ArrayList<Integer> headerExprLen = new ArrayList<>();
-        for (int i = 0; i < truthTable.size(); i++) {
-            List<String> currList = truthTable.get(i);
-            for (int j = 0; j < currList.size(); j++) {
-                String currStr = currList.get(j);
-                // Need to get length of each expr in header row to pad truth values later
-                if (i == 0) {
-                    headerExprLen.add(currStr.length());
-                } else {
-                    // Pad the truth value with spaces to the right if the length of the expr it came out of is > 1
-                    int exprLen = headerExprLen.get(j);
-                    if (exprLen > 1) {
-                        char[] charArr = new char[exprLen];
-                        Arrays.fill(charArr, ' ');
-                        charArr[exprLen/2] = currStr.charAt(0);
-                        currStr = new String(charArr);
-                    }
-                    strBuilder.append(currStr);
-                    strBuilder.append(" ");
-                }
+    public void writeTruthTable(WritableByteChannel channel) throws IOException {
+        new TruthTableWriter(createHeader()).write(rowIterator(), channel);
+    }
+
+    /**
+     * Write the truth table formatted like a table to an OutputStream in the same way as writing to a channel
+     * @param out Stream to write to, which is flushed but not closed afterwards
+     * @throws IOException if the stream can't be written to
+     */
+    public void writeTruthTable(OutputStream out) throws IOException {
+        writeTruthTable(Channels.newChannel(out));
+        out.flush();
+    }
+
+    /**
+     * Write the truth table formatted like a table to a Writer in the same way as writing to a channel
+     * @param writer Writer to write to, which is flushed but not closed afterwards
+     * @throws IOException if the writer can't be written to
+     */
+    public void writeTruthTable(Writer writer) throws IOException {
+        new TruthTableWriter(createHeader()).write(rowIterator(), writer);
+        writer.flush();
+    }
+
+    /**
+     * Check if two expressions have the same value for every assignment of their variables. Variables are matched by
+     * name, so each expression is evaluated over every assignment of the variables of both expressions, 64 rows at a
+     * time, stopping at the first word where they differ. No truth table or strings are created. If the two
+     * expressions have more than SOLVER_THRESHOLD variables between them they are compared with a Bdd instead, since
+     * going through every row would take too long
+     * @param first Parse tree of the first expression
+     * @param second Parse tree of the second expression
+     * @return a QueryResult holding the first row where the expressions differ if they are not equivalent. The
+     * variables of the first expression come first followed by any only in the second
+     */
+    public static QueryResult areEquivalent(ParseTreeRoot first, ParseTreeRoot second) {
+        VariableTable union = unionVariables(first, second);
+        int numVars = union.size();
+        if (numVars > SOLVER_THRESHOLD) return Bdd.areEquivalent(first, second);
+        Metrics metrics = Metrics.getInstance();
+        long start = metrics.start();
+        CompiledExpr firstExpr = first.compiledExpr;
+        CompiledExpr secondExpr = second.compiledExpr;
+        int[] firstVars = unionIds(first, union);
+        int[] secondVars = unionIds(second, union);
+        long[] firstWords = new long[firstExpr.getNumVars() + firstExpr.getNumOperators()];
+        long[] secondWords = new long[secondExpr.getNumVars() + secondExpr.getNumOperators()];
+        long[] firstStack = new long[firstExpr.getMaxStackSize()];
+        long[] secondStack = new long[secondExpr.getMaxStackSize()];
+        long rows = 1L << numVars;
+        long words = (rows + 63) >>> 6;
+        long found = -1;
+        long w = 0;
+        for (; w < words && found < 0; w++) {
+            for (int i = 0; i < firstVars.length; i++) {
+                firstWords[i] = BitColumns.variableWord(firstVars[i], numVars, w);
             }
-            strBuilder.append("\n");
+            for (int i = 0; i < secondVars.length; i++) {
+                secondWords[i] = BitColumns.variableWord(secondVars[i], numVars, w);
+            }
+            long diff = firstExpr.evalLoadedWord(firstStack, firstWords)
+                    ^ secondExpr.evalLoadedWord(secondStack, secondWords);
+            if (w == words - 1) diff &= BitColumns.tailMask(rows);
+            if (diff != 0) found = (w << 6) + Long.numberOfTrailingZeros(diff);
+        }
+        metrics.addRowsEvaluated(Math.min(w << 6, rows));
+        metrics.stop(Metrics.Phase.EVALUATE, start);
+        return new QueryResult(found < 0, found, union.getNames());
+    }
+
+    /**
+     * Helper method for areEquivalent: Intern the variables of the first expression followed by the second
+     * @param first Parse tree of the first expression
+     * @param second Parse tree of the second expression
+     * @return a table of every variable in either expression
+     */
+    static VariableTable unionVariables(ParseTreeRoot first, ParseTreeRoot second) {
+        VariableTable union = new VariableTable();
+        for (String name: first.getVariables()) {
+            union.intern(name);
         }
-        truthTableStr = strBuilder.toString();
+        for (String name: second.getVariables()) {
+            union.intern(name);
+        }
+        return union;
+    }
+
+    /**
+     * Helper method for areEquivalent: Get the id in the union of each variable of an expression
+     * @param tree Parse tree of the expression
+     * @param union Table holding every variable of the expression
+     * @return id in the union of each variable
+     */
+    private static int[] unionIds(ParseTreeRoot tree, VariableTable union) {
+        int[] ids = new int[tree.variables.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = union.getId(tree.variables.getName(i));
+        }
+        return ids;
     }
 
     /**
@@ -264,6 +904,27 @@ public class ParseTreeRoot {
         return root.getExprStr();
     }
 
+    /**
+     * @return Root node of the parse tree
+     */
+    public ParseTreeNode getRoot() {
+        return root;
+    }
+
+    /**
+     * @return Names of the variables of the expression in the order they appear in the header of the truth table
+     */
+    public List<String> getVariables() {
+        return variables.getNames();
+    }
+
+    /**
+     * @return the expression compiled into a postfix program that can be evaluated without the parse tree
+     */
+    public CompiledExpr getCompiledExpr() {
+        return compiledExpr;
+    }
+
     /**
      * Getter method
      * @return the number of unique variables in the expression
@@ -272,4 +933,16 @@ public class ParseTreeRoot {
         return variables.size();
     }
 
+    /**
+     * Getter method
+     * @return the number of rows in the truth table
+     * @throws IllegalStateException if the expression has more than MAX_VARIABLES variables
+     */
+    public long getNumRows() {
+        if (variables.size() > MAX_VARIABLES)
+            throw new IllegalStateException("Rows of a truth table can only be numbered for at most " + MAX_VARIABLES
+                    + " variables");
+        return 1L << variables.size();
+    }
+
 }
@@ -0,0 +1,106 @@
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author Richard Luong
+ * Answer to a yes or no question about an expression, such as whether it is a tautology, along with the assignment
+ * of the variables that proves it when there is one. A satisfiable expression is proven by a row where it is true
+ * while a tautology is disproven by a row where it is false.
+ */
+public class QueryResult {
+    private boolean answer;
+    private boolean[] model;
+    private List<String> variables;
+
+    /**
+     * Constructor
+     * @param answer Answer to the question
+     * @param assignment Assignment of the variables that proves the answer in the same form as the row number of the
+     *                   truth table, or -1 if there is none
+     * @param variables Names of the variables in the order of the truth table
+     */
+    QueryResult(boolean answer, long assignment, List<String> variables) {
+        this(answer, (assignment >= 0) ? rowToModel(assignment, variables.size()) : null, variables);
+    }
+
+    /**
+     * Constructor
+     * @param answer Answer to the question
+     * @param model Value of each variable in the assignment that proves the answer, or null if there is none
+     * @param variables Names of the variables in the order of the truth table
+     */
+    QueryResult(boolean answer, boolean[] model, List<String> variables) {
+        this.answer = answer;
+        this.model = model;
+        this.variables = variables;
+    }
+
+    /**
+     * Helper method for the constructor: Get the value of each variable in a row of the truth table
+     * @param row Row number
+     * @param numVars Number of variables
+     * @return the value of each variable
+     */
+    private static boolean[] rowToModel(long row, int numVars) {
+        boolean[] model = new boolean[numVars];
+        for (int i = 0; i < numVars; i++) {
+            // The first variable is the highest bit of the row number
+            model[i] = ((row >>> (numVars - 1 - i)) & 1) != 0;
+        }
+        return model;
+    }
+
+    /**
+     * @return Answer to the question
+     */
+    public boolean getAnswer() {
+        return answer;
+    }
+
+    /**
+     * @return true if there is an assignment of the variables that proves the answer
+     */
+    public boolean hasWitness() {
+        return model != null;
+    }
+
+    /**
+     * @return Assignment that proves the answer, which is also its row number in the truth table, or -1 if there is
+     * none
+     * @throws IllegalStateException if there are too many variables for the assignment to fit in a long
+     */
+    public long getAssignment() {
+        if (model == null) return -1;
+        if (model.length > ParseTreeRoot.MAX_VARIABLES)
+            throw new IllegalStateException("Assignments of more than " + ParseTreeRoot.MAX_VARIABLES
+                    + " variables don't have a row number");
+        long row = 0;
+        for (boolean value: model) {
+            row = (row << 1) | (value ? 1 : 0);
+        }
+        return row;
+    }
+
+    /**
+     * @return a copy of the value of each variable in the assignment that proves the answer in the order of the truth
+     * table, or null if there is none
+     */
+    public boolean[] getModel() {
+        return (model == null) ? null : model.clone();
+    }
+
+    /**
+     * Get the value of each variable in the assignment that proves the answer
+     * @return the name of each variable mapped to its value in the order of the truth table, or an empty map if there
+     * is no assignment
+     */
+    public Map<String, Boolean> getValues() {
+        Map<String, Boolean> values = new LinkedHashMap<>();
+        if (model == null) return values;
+        for (int i = 0; i < model.length; i++) {
+            values.put(variables.get(i), model[i]);
+        }
+        return values;
+    }
+}
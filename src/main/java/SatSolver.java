@@ -0,0 +1,502 @@
+import java.util.Arrays;
+
+/**
+ * @author Richard Luong
+ * Conflict driven clause learning SAT solver for answering satisfiability questions about expressions with too many
+ * variables to go through every row of the truth table. The expression is converted to CNF with the Tseitin
+ * encoding and searched by assigning variables one at a time:
+ * - Unit propagation uses two watched literals per clause so only clauses that may have become unit are looked at
+ * - Every conflict is analysed back to its first unique implication point and learnt as a new clause before jumping
+ *   back to the level where the learnt clause becomes unit
+ * - The next variable is the one with the highest activity, where variables in recent conflicts gain activity, and
+ *   it is given the value it last had
+ * - The search restarts after a number of conflicts following the Luby sequence
+ * Clauses are stored back to back in a single int array with no object per clause. Learnt clauses are never deleted,
+ * which is fine for the size of formulas created from expressions.
+ */
+public final class SatSolver {
+    // Conflicts in the first run before restarting, later runs are a multiple of this from the Luby sequence
+    private static final int RESTART_BASE = 100;
+    // Activity of every variable decays by this much after each conflict
+    private static final double VAR_DECAY = 0.95;
+
+    private final int numVars;
+    private final int numInputVars;
+
+    // Clause storage, where clause i is lits[starts[i]] up to lits[starts[i + 1]] and its first two are watched
+    private int[] lits;
+    private int numLits;
+    private int[] starts;
+    private int numClauses;
+    // Clauses watching each literal
+    private final int[][] watches;
+    private final int[] watchCounts;
+
+    // Value of each variable: 1 for true, -1 for false and 0 if it isn't assigned
+    private final int[] assigns;
+    private final int[] level;
+    // Clause that implied each variable, or -1 if it was decided
+    private final int[] reason;
+    // Value each variable had when it was last assigned
+    private final boolean[] polarity;
+    private final int[] trail;
+    private int trailSize;
+    // Position in the trail of the next literal to propagate
+    private int qhead;
+    // Position in the trail where each decision level starts
+    private final int[] trailLim;
+    private int numLevels;
+
+    private final double[] activity;
+    private double varInc = 1;
+    private final VarHeap order;
+    private final boolean[] seen;
+
+    private boolean unsat;
+    private Boolean result;
+    private long conflicts;
+    private long decisions;
+
+    /**
+     * Constructor: Load the clauses of a formula. Unit clauses are assigned straight away, duplicate literals are
+     * removed and clauses that are always true are left out
+     * @param cnf Formula to solve
+     */
+    public SatSolver(CnfFormula cnf) {
+        numVars = cnf.getNumVars();
+        numInputVars = cnf.getNumInputVars();
+        lits = new int[16];
+        starts = new int[16];
+        watches = new int[2 * numVars][];
+        watchCounts = new int[2 * numVars];
+        assigns = new int[numVars];
+        level = new int[numVars];
+        reason = new int[numVars];
+        polarity = new boolean[numVars];
+        trail = new int[numVars];
+        trailLim = new int[numVars + 1];
+        activity = new double[numVars];
+        seen = new boolean[numVars];
+        Arrays.fill(reason, -1);
+        order = new VarHeap();
+        for (int v = 0; v < numVars; v++) {
+            order.insert(v);
+        }
+        // Marks the literals already in the clause being loaded
+        int[] stamps = new int[2 * numVars];
+        int[] clause = new int[16];
+        int[] cnfLits = cnf.getLiterals();
+        int[] cnfStarts = cnf.getClauseStarts();
+        for (int c = 0; c < cnf.getNumClauses() && !unsat; c++) {
+            int size = 0;
+            boolean alwaysTrue = false;
+            for (int k = cnfStarts[c]; k < cnfStarts[c + 1]; k++) {
+                int lit = cnfLits[k];
+                if (stamps[lit ^ 1] == c + 1) alwaysTrue = true;
+                if (stamps[lit] == c + 1) continue;
+                stamps[lit] = c + 1;
+                if (size == clause.length) clause = Arrays.copyOf(clause, size * 2);
+                clause[size++] = lit;
+            }
+            if (alwaysTrue) continue;
+            if (size == 0) {
+                unsat = true;
+            } else if (size == 1) {
+                int value = value(clause[0]);
+                if (value == -1) unsat = true;
+                else if (value == 0) enqueue(clause[0], -1);
+            } else {
+                addClause(clause, size);
+            }
+        }
+    }
+
+    /**
+     * Check if an expression is true for at least one assignment of its variables
+     * @param tree Parse tree of the expression, which can have any number of variables
+     * @return a QueryResult holding a satisfying assignment if there is one
+     */
+    public static QueryResult isSatisfiable(ParseTreeRoot tree) {
+        SatSolver solver = new SatSolver(CnfFormula.encode(tree.getCompiledExpr(), true));
+        boolean sat = solver.solve();
+        return new QueryResult(sat, sat ? solver.getModel() : null, tree.getVariables());
+    }
+
+    /**
+     * Check if an expression is true for every assignment of its variables by checking its negation can't be true
+     * @param tree Parse tree of the expression, which can have any number of variables
+     * @return a QueryResult holding an assignment where the expression is false if it isn't a tautology
+     */
+    public static QueryResult isTautology(ParseTreeRoot tree) {
+        SatSolver solver = new SatSolver(CnfFormula.encode(tree.getCompiledExpr(), false));
+        boolean sat = solver.solve();
+        return new QueryResult(!sat, sat ? solver.getModel() : null, tree.getVariables());
+    }
+
+    /**
+     * Check if an expression is false for every assignment of its variables
+     * @param tree Parse tree of the expression, which can have any number of variables
+     * @return a QueryResult holding an assignment where the expression is true if it isn't a contradiction
+     */
+    public static QueryResult isContradiction(ParseTreeRoot tree) {
+        QueryResult satisfiable = isSatisfiable(tree);
+        return new QueryResult(!satisfiable.getAnswer(), satisfiable.getModel(), tree.getVariables());
+    }
+
+    /**
+     * Search for an assignment that makes every clause true. The answer is kept so calling this again does no work
+     * @return true if the formula is satisfiable
+     */
+    public boolean solve() {
+        if (result == null) result = search();
+        return result;
+    }
+
+    /**
+     * Helper method for solve: Run the CDCL search from the current state
+     * @return true if the formula is satisfiable
+     */
+    private boolean search() {
+        if (unsat || propagate() != -1) return false;
+        int restarts = 0;
+        long conflictLimit = luby(restarts) * RESTART_BASE;
+        long conflictsSinceRestart = 0;
+        int[] learnt = new int[numVars];
+        while (true) {
+            int conflict = propagate();
+            if (conflict != -1) {
+                conflicts++;
+                conflictsSinceRestart++;
+                // A conflict without any decisions can't be avoided
+                if (numLevels == 0) return false;
+                int size = analyze(conflict, learnt);
+                int backtrackLevel = 0;
+                if (size > 1) {
+                    // Watch the literal from the highest level after the asserting literal
+                    int maxIdx = 1;
+                    for (int k = 2; k < size; k++) {
+                        if (level[learnt[k] >> 1] > level[learnt[maxIdx] >> 1]) maxIdx = k;
+                    }
+                    int tmp = learnt[1];
+                    learnt[1] = learnt[maxIdx];
+                    learnt[maxIdx] = tmp;
+                    backtrackLevel = level[learnt[1] >> 1];
+                }
+                cancelUntil(backtrackLevel);
+                enqueue(learnt[0], (size > 1) ? addClause(learnt, size) : -1);
+                varInc /= VAR_DECAY;
+            } else if (conflictsSinceRestart >= conflictLimit) {
+                cancelUntil(0);
+                conflictLimit = luby(++restarts) * RESTART_BASE;
+                conflictsSinceRestart = 0;
+            } else {
+                int next = pickBranchVar();
+                // Every variable is assigned without a conflict
+                if (next == -1) return true;
+                decisions++;
+                trailLim[numLevels++] = trailSize;
+                enqueue(CnfFormula.literal(next, !polarity[next]), -1);
+            }
+        }
+    }
+
+    /**
+     * Propagate every literal on the trail that hasn't been propagated yet, assigning the last literal of any clause
+     * where every other literal is false
+     * @return a clause that has become false, or -1 if there is no conflict
+     */
+    private int propagate() {
+        while (qhead < trailSize) {
+            int falseLit = trail[qhead++] ^ 1;
+            int[] ws = watches[falseLit];
+            int n = watchCounts[falseLit];
+            int i = 0;
+            int j = 0;
+            while (i < n) {
+                int c = ws[i++];
+                int s = starts[c];
+                // Keep the false literal second so the first is the other watch
+                if (lits[s] == falseLit) {
+                    lits[s] = lits[s + 1];
+                    lits[s + 1] = falseLit;
+                }
+                int first = lits[s];
+                if (value(first) == 1) {
+                    ws[j++] = c;
+                    continue;
+                }
+                // Look for a literal that isn't false to watch instead
+                boolean moved = false;
+                for (int k = s + 2; k < starts[c + 1]; k++) {
+                    if (value(lits[k]) != -1) {
+                        lits[s + 1] = lits[k];
+                        lits[k] = falseLit;
+                        watch(lits[s + 1], c);
+                        moved = true;
+                        break;
+                    }
+                }
+                if (moved) continue;
+                ws[j++] = c;
+                if (value(first) == -1) {
+                    // Conflict so keep the rest of the watches and stop propagating
+                    while (i < n) ws[j++] = ws[i++];
+                    watchCounts[falseLit] = j;
+                    qhead = trailSize;
+                    return c;
+                }
+                enqueue(first, c);
+            }
+            watchCounts[falseLit] = j;
+        }
+        return -1;
+    }
+
+    /**
+     * Find the first unique implication point of a conflict by resolving the conflict clause with the reasons of the
+     * literals assigned at the current level until only one of them is left
+     * @param conflict Clause that became false
+     * @param learnt Filled in with the learnt clause, the first literal is the one asserted after backtracking
+     * @return number of literals in the learnt clause
+     */
+    private int analyze(int conflict, int[] learnt) {
+        int size = 1;
+        int pathCount = 0;
+        int p = -1;
+        int index = trailSize - 1;
+        int c = conflict;
+        do {
+            for (int k = starts[c]; k < starts[c + 1]; k++) {
+                int q = lits[k];
+                int v = q >> 1;
+                // The literal implied by the reason clause has already been resolved on
+                if (p != -1 && v == (p >> 1)) continue;
+                if (!seen[v] && level[v] > 0) {
+                    seen[v] = true;
+                    bumpActivity(v);
+                    if (level[v] >= numLevels) {
+                        pathCount++;
+                    } else {
+                        learnt[size++] = q;
+                    }
+                }
+            }
+            // Next literal on the trail that is part of the conflict
+            while (!seen[trail[index] >> 1]) index--;
+            p = trail[index--];
+            c = reason[p >> 1];
+            seen[p >> 1] = false;
+            pathCount--;
+        } while (pathCount > 0);
+        learnt[0] = p ^ 1;
+        for (int k = 1; k < size; k++) {
+            seen[learnt[k] >> 1] = false;
+        }
+        return size;
+    }
+
+    /**
+     * Undo every assignment above a decision level, remembering the value each variable had
+     * @param targetLevel Decision level to go back to
+     */
+    private void cancelUntil(int targetLevel) {
+        if (numLevels <= targetLevel) return;
+        for (int i = trailSize - 1; i >= trailLim[targetLevel]; i--) {
+            int v = trail[i] >> 1;
+            polarity[v] = assigns[v] == 1;
+            assigns[v] = 0;
+            reason[v] = -1;
+            if (!order.contains(v)) order.insert(v);
+        }
+        trailSize = trailLim[targetLevel];
+        qhead = trailSize;
+        numLevels = targetLevel;
+    }
+
+    /**
+     * @return the unassigned variable with the highest activity, or -1 if every variable is assigned
+     */
+    private int pickBranchVar() {
+        while (!order.isEmpty()) {
+            int v = order.removeMax();
+            if (assigns[v] == 0) return v;
+        }
+        return -1;
+    }
+
+    /**
+     * Add a clause of at least 2 literals and watch its first two
+     * @param clause Literals of the clause
+     * @param size Number of literals
+     * @return index of the clause
+     */
+    private int addClause(int[] clause, int size) {
+        if (numClauses + 2 > starts.length) starts = Arrays.copyOf(starts, starts.length * 2);
+        if (numLits + size > lits.length) lits = Arrays.copyOf(lits, Math.max(lits.length * 2, numLits + size));
+        int c = numClauses++;
+        starts[c] = numLits;
+        System.arraycopy(clause, 0, lits, numLits, size);
+        numLits += size;
+        starts[numClauses] = numLits;
+        watch(clause[0], c);
+        watch(clause[1], c);
+        return c;
+    }
+
+    private void watch(int lit, int clause) {
+        int[] ws = watches[lit];
+        if (ws == null) {
+            ws = watches[lit] = new int[4];
+        } else if (watchCounts[lit] == ws.length) {
+            ws = watches[lit] = Arrays.copyOf(ws, ws.length * 2);
+        }
+        ws[watchCounts[lit]++] = clause;
+    }
+
+    private void enqueue(int lit, int from) {
+        int v = lit >> 1;
+        assigns[v] = ((lit & 1) == 0) ? 1 : -1;
+        level[v] = numLevels;
+        reason[v] = from;
+        trail[trailSize++] = lit;
+    }
+
+    /**
+     * @param lit Literal
+     * @return 1 if the literal is true, -1 if it is false and 0 if its variable isn't assigned
+     */
+    private int value(int lit) {
+        int value = assigns[lit >> 1];
+        return ((lit & 1) == 0) ? value : -value;
+    }
+
+    private void bumpActivity(int v) {
+        activity[v] += varInc;
+        if (activity[v] > 1e100) {
+            // Scale every activity down before they overflow
+            for (int i = 0; i < numVars; i++) {
+                activity[i] *= 1e-100;
+            }
+            varInc *= 1e-100;
+        }
+        if (order.contains(v)) order.increase(v);
+    }
+
+    /**
+     * Get a value of the Luby sequence 1, 1, 2, 1, 1, 2, 4, 1, 1, 2, 1, 1, 2, 4, 8, ...
+     * @param i Position in the sequence starting from 0
+     * @return the value at the position
+     */
+    private static long luby(int i) {
+        int size = 1;
+        int seq = 0;
+        while (size < i + 1) {
+            seq++;
+            size = 2 * size + 1;
+        }
+        while (size - 1 != i) {
+            size = (size - 1) >> 1;
+            seq--;
+            i = i % size;
+        }
+        return 1L << seq;
+    }
+
+    /**
+     * @precondition solve() returned true
+     * @return Value of each variable of the original expression in the satisfying assignment
+     */
+    public boolean[] getModel() {
+        if (result == null || !result) throw new IllegalStateException("No satisfying assignment has been found");
+        boolean[] model = new boolean[numInputVars];
+        for (int v = 0; v < numInputVars; v++) {
+            model[v] = assigns[v] == 1;
+        }
+        return model;
+    }
+
+    /**
+     * @return Number of conflicts found while solving
+     */
+    public long getConflicts() {
+        return conflicts;
+    }
+
+    /**
+     * @return Number of decisions made while solving
+     */
+    public long getDecisions() {
+        return decisions;
+    }
+
+    /**
+     * Binary max heap of the variables ordered by their activity. Keeps the position of every variable in the heap
+     * so its activity can be increased without searching for it
+     */
+    private final class VarHeap {
+        private final int[] heap = new int[numVars];
+        private final int[] indices = new int[numVars];
+        private int size = 0;
+
+        VarHeap() {
+            Arrays.fill(indices, -1);
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        boolean contains(int v) {
+            return indices[v] >= 0;
+        }
+
+        void insert(int v) {
+            heap[size] = v;
+            indices[v] = size;
+            percolateUp(size++);
+        }
+
+        void increase(int v) {
+            percolateUp(indices[v]);
+        }
+
+        int removeMax() {
+            int max = heap[0];
+            indices[max] = -1;
+            if (--size > 0) {
+                heap[0] = heap[size];
+                indices[heap[0]] = 0;
+                percolateDown(0);
+            }
+            return max;
+        }
+
+        private void percolateUp(int i) {
+            int v = heap[i];
+            while (i > 0) {
+                int parent = (i - 1) >> 1;
+                if (activity[heap[parent]] >= activity[v]) break;
+                heap[i] = heap[parent];
+                indices[heap[i]] = i;
+                i = parent;
+            }
+            heap[i] = v;
+            indices[v] = i;
+        }
+
+        private void percolateDown(int i) {
+            int v = heap[i];
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) break;
+                if (child + 1 < size && activity[heap[child + 1]] > activity[heap[child]]) child++;
+                if (activity[heap[child]] <= activity[v]) break;
+                heap[i] = heap[child];
+                indices[heap[i]] = i;
+                i = child;
+            }
+            heap[i] = v;
+            indices[v] = i;
+        }
+    }
+}
@@ -0,0 +1,241 @@
+import java.util.Arrays;
+
+/**
+ * @author Richard Luong
+ * Evaluates only the main expression of a compiled expression 64 rows at a time while skipping work the way && and
+ * || do. Every operand is evaluated for a mask of the rows whose value is still needed: once the first operand of an
+ * AND is false, an OR is true or the LHS of an IMPL is false for a row, the other operand isn't needed for that row,
+ * and when no rows are left the other operand isn't evaluated at all. The operand with the smaller sub expression is
+ * evaluated first since it is the cheaper one to use to decide the rest. IMPL can go either way round as it is
+ * decided by a false LHS or a true RHS. Sub expressions shared by more than one parent keep their value for the word
+ * being evaluated so they are only evaluated again for rows that weren't needed the first time.
+ * The tree is walked with an explicit stack so deeply nested expressions can't overflow the call stack.
+ */
+final class ShortCircuitEvaluator {
+    // How the first operand of an operator decides its value
+    private static final int NOT = 0;
+    private static final int AND = 1;
+    private static final int OR = 2;
+    private static final int IMPL = 3;
+    // IMPL with its RHS evaluated first
+    private static final int IMPL_RHS_FIRST = 4;
+    private static final int BICOND = 5;
+
+    // States of a frame on the stack
+    private static final int START = 0;
+    private static final int FIRST_DONE = 1;
+    private static final int SECOND_DONE = 2;
+
+    private final int numVars;
+    private final int rootSlot;
+    private final int[] kinds;
+    private final int[] firstSlots;
+    private final int[] secondSlots;
+    // Value of each shared operator in the current word along with the rows it was evaluated for
+    private final boolean[] shared;
+    private final long[] memoWords;
+    private final long[] memoValues;
+    private final long[] memoMasks;
+    // Frames of the operators being evaluated
+    private final int[] frameSlots;
+    private final long[] frameMasks;
+    private final int[] frameStates;
+    private final long[] frameFirstValues;
+
+    /**
+     * Constructor
+     * @param expr Compiled expression
+     */
+    ShortCircuitEvaluator(CompiledExpr expr) {
+        this.numVars = expr.getNumVars();
+        int numOperators = expr.getNumOperators();
+        int numSlots = numVars + numOperators;
+        this.rootSlot = numSlots - 1;
+        int[] opcodes = new int[numOperators];
+        int[] leftSlots = new int[numOperators];
+        int[] rightSlots = new int[numOperators];
+        expr.decodeOperators(opcodes, leftSlots, rightSlots);
+        // Estimated cost of each slot is the size of its sub expression, and its depth decides the stack size
+        long[] costs = new long[numSlots];
+        int[] depths = new int[numSlots];
+        int[] numParents = new int[numSlots];
+        for (int s = 0; s < numVars; s++) {
+            costs[s] = 1;
+            depths[s] = 1;
+        }
+        this.kinds = new int[numOperators];
+        this.firstSlots = new int[numOperators];
+        this.secondSlots = new int[numOperators];
+        for (int op = 0; op < numOperators; op++) {
+            int left = leftSlots[op];
+            int right = rightSlots[op];
+            int slot = numVars + op;
+            numParents[right]++;
+            if (opcodes[op] == CompiledExpr.NOT) {
+                kinds[op] = NOT;
+                firstSlots[op] = right;
+                secondSlots[op] = -1;
+                costs[slot] = costs[right] + 1;
+                depths[slot] = depths[right] + 1;
+                continue;
+            }
+            numParents[left]++;
+            // Shared sub expressions are counted once for every parent so the cost can grow quickly, keep it in range
+            costs[slot] = Math.min(Long.MAX_VALUE / 4, costs[left] + costs[right] + 1);
+            depths[slot] = Math.max(depths[left], depths[right]) + 1;
+            boolean rightFirst = costs[right] < costs[left];
+            switch (opcodes[op]) {
+                case CompiledExpr.AND:
+                    kinds[op] = AND;
+                    break;
+                case CompiledExpr.OR:
+                    kinds[op] = OR;
+                    break;
+                case CompiledExpr.IMPL:
+                    kinds[op] = rightFirst ? IMPL_RHS_FIRST : IMPL;
+                    break;
+                default:
+                    // Both sides of a BICOND are always needed so the order doesn't matter
+                    kinds[op] = BICOND;
+                    rightFirst = false;
+            }
+            firstSlots[op] = rightFirst ? right : left;
+            secondSlots[op] = rightFirst ? left : right;
+        }
+        this.shared = new boolean[numOperators];
+        for (int op = 0; op < numOperators; op++) {
+            shared[op] = numParents[numVars + op] > 1;
+        }
+        this.memoWords = new long[numOperators];
+        Arrays.fill(memoWords, -1);
+        this.memoValues = new long[numOperators];
+        this.memoMasks = new long[numOperators];
+        int maxDepth = depths[rootSlot];
+        this.frameSlots = new int[maxDepth];
+        this.frameMasks = new long[maxDepth];
+        this.frameStates = new int[maxDepth];
+        this.frameFirstValues = new long[maxDepth];
+    }
+
+    /**
+     * Evaluate the main expression for every row
+     * @param rows Number of rows in the truth table
+     * @return bit column holding the value of the expression for each row
+     */
+    long[] evalResults(long rows) {
+        long[] result = new long[BitColumns.wordCount(rows)];
+        int lastWord = result.length - 1;
+        for (int w = 0; w < result.length; w++) {
+            // Rows past the end of the table are never needed
+            long mask = (w == lastWord) ? BitColumns.tailMask(rows) : -1L;
+            result[w] = evalWord(w, mask) & mask;
+        }
+        return result;
+    }
+
+    /**
+     * Evaluate the main expression for a word of 64 rows
+     * @param word Index of the word
+     * @param mask Rows of the word whose value is needed
+     * @return values of the expression, only the bits in the mask are meaningful
+     */
+    private long evalWord(long word, long mask) {
+        int top = 0;
+        frameSlots[0] = rootSlot;
+        frameMasks[0] = mask;
+        frameStates[0] = START;
+        long value = 0;
+        while (top >= 0) {
+            int slot = frameSlots[top];
+            if (slot < numVars) {
+                value = BitColumns.variableWord(slot, numVars, word);
+                top--;
+                continue;
+            }
+            int op = slot - numVars;
+            long currMask = frameMasks[top];
+            int kind = kinds[op];
+            switch (frameStates[top]) {
+                case START:
+                    if (shared[op] && memoWords[op] == word && (currMask & ~memoMasks[op]) == 0) {
+                        value = memoValues[op];
+                        top--;
+                        continue;
+                    }
+                    frameStates[top] = FIRST_DONE;
+                    top = push(top, firstSlots[op], currMask);
+                    continue;
+                case FIRST_DONE:
+                    long first = value;
+                    frameFirstValues[top] = first;
+                    long rest;
+                    if (kind == NOT) {
+                        value = ~first;
+                        break;
+                    } else if (kind == AND || kind == IMPL) {
+                        rest = currMask & first;
+                    } else if (kind == OR || kind == IMPL_RHS_FIRST) {
+                        rest = currMask & ~first;
+                    } else {
+                        rest = currMask;
+                    }
+                    if (rest == 0) {
+                        // The first operand decided every row that is needed
+                        value = (kind == IMPL) ? ~first : first;
+                        break;
+                    }
+                    frameStates[top] = SECOND_DONE;
+                    top = push(top, secondSlots[op], rest);
+                    continue;
+                default:
+                    value = combine(kind, frameFirstValues[top], value);
+            }
+            if (shared[op]) {
+                if (memoWords[op] == word) {
+                    // Keep the rows evaluated before that weren't needed this time
+                    value = (memoValues[op] & ~currMask) | (value & currMask);
+                    currMask |= memoMasks[op];
+                }
+                memoWords[op] = word;
+                memoValues[op] = value;
+                memoMasks[op] = currMask;
+            }
+            top--;
+        }
+        return value;
+    }
+
+    /**
+     * Helper method for evalWord: Push the frame of an operand onto the stack
+     * @param top Index of the frame on top of the stack
+     * @param slot Slot of the operand
+     * @param mask Rows whose value of the operand is needed
+     * @return the new index of the top of the stack
+     */
+    private int push(int top, int slot, long mask) {
+        top++;
+        frameSlots[top] = slot;
+        frameMasks[top] = mask;
+        frameStates[top] = START;
+        return top;
+    }
+
+    /**
+     * Helper method for evalWord: Combine the values of both operands of an operator
+     * @param kind How the first operand decides the value of the operator
+     * @param first Values of the operand evaluated first
+     * @param second Values of the operand evaluated second
+     * @return values of the operator
+     */
+    private static long combine(int kind, long first, long second) {
+        switch (kind) {
+            case AND: return first & second;
+            case OR: return first | second;
+            case IMPL: return ~first | second;
+            case IMPL_RHS_FIRST: return first | ~second;
+            case BICOND: return ~(first ^ second);
+            // This should never be reached unless given an unknown kind which shouldn't be possible
+            default: return 0;
+        }
+    }
+}
@@ -1,7 +1,9 @@
 /**
  * 
  * @author Richard Luong
- * Enum used to represent the operators in propositional logic and 8 variables that can be used
+ * Enum used to represent the operators in propositional logic and the variables that can be used. Single letter
+ * variables have their own constant while multi character identifiers are all represented by IDENT, with the name
+ * of each identifier held by the TokenList they are in
  *
  */
 
@@ -11,6 +13,7 @@ public enum Token {
     // Variables
     VAR_P(99, 'P'), VAR_Q(99, 'Q'), VAR_R(99, 'R'), VAR_S(99, 'S'),
     VAR_U(99, 'U'), VAR_W(99, 'W'), VAR_X(99, 'X'), VAR_Y(99, 'Y'),
+    IDENT(99, '_'),
     // Parentheses
     L_PAREN(0, '('), R_PAREN(0, ')'),
     // Non matching
@@ -104,6 +107,25 @@ public enum Token {
     }
 
 
+    /**
+     * Check if a character can start a multi character identifier. Identifiers are lower case so that they can't be
+     * confused with the single letter variables or the OR operator
+     * @param c character to check
+     * @return true or false
+     */
+    public static boolean isIdentifierStart(char c) {
+        return (c >= 'a' && c <= 'z') || c == '_';
+    }
+
+    /**
+     * Check if a character can be part of a multi character identifier after the first character
+     * @param c character to check
+     * @return true or false
+     */
+    public static boolean isIdentifierPart(char c) {
+        return isIdentifierStart(c) || (c >= '0' && c <= '9');
+    }
+
     /**
      * Returns the Token that matches with the char given
      * @param c character to check
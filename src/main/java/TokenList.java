@@ -0,0 +1,251 @@
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * @author Richard Luong
+ * List of tokens created from a propositional logic expression which also holds the name of every Token.IDENT in
+ * the list. Names are stored in the order the identifiers appear, so they stay matched to their tokens when
+ * parentheses are inserted into the list. Every method that changes the list keeps the names in step with the
+ * tokens: removing an identifier removes its name, and adding an identifier without a name through the List methods
+ * is rejected, use addIdentifier() instead. Two lists are only equal if their identifiers also have the same names.
+ * Because of this some List operations are not supported:
+ * - add, add(index), set and replaceAll throw IllegalArgumentException when they would put a Token.IDENT where there
+ *   wasn't one, as there is no name to give it. This includes Collections.swap, reverse, shuffle and rotate
+ *   whenever they move an identifier to a position that held a different token
+ * - addAll and the copy constructor only accept identifiers from another TokenList
+ * - subList returns a read only view
+ */
+public class TokenList extends ArrayList<Token> {
+    private static final long serialVersionUID = 1L;
+
+    private ArrayList<String> identifiers = new ArrayList<>();
+
+    /**
+     * Constructor: Creates an empty list
+     */
+    public TokenList() {
+    }
+
+    /**
+     * Constructor: Copies a list of tokens along with the names of its identifiers if it is a TokenList
+     * @param tokens List of tokens to copy
+     * @throws IllegalArgumentException if the tokens contain a Token.IDENT but aren't a TokenList
+     */
+    public TokenList(List<Token> tokens) {
+        super(tokens);
+        if (tokens instanceof TokenList) {
+            identifiers.addAll(((TokenList) tokens).identifiers);
+        } else if (tokens.contains(Token.IDENT)) {
+            throw new IllegalArgumentException("Identifiers require a TokenList holding their names");
+        }
+    }
+
+    /**
+     * Add a Token.IDENT to the end of the list
+     * @param name Name of the identifier
+     */
+    public void addIdentifier(String name) {
+        super.add(Token.IDENT);
+        identifiers.add(name);
+    }
+
+    /**
+     * @param ordinal Position of the identifier among the other identifiers in the list
+     * @return Name of the identifier
+     */
+    public String getIdentifier(int ordinal) {
+        return identifiers.get(ordinal);
+    }
+
+    /**
+     * Create a string of the tokens in a normalised form where every token is separated by a single space and
+     * identifiers are written with their name. Two inputs that only differ in their whitespace give the same string
+     * @return the normalised string
+     */
+    public String toNormalizedString() {
+        StringBuilder strBuilder = new StringBuilder();
+        int identCount = 0;
+        for (Token currToken: this) {
+            if (strBuilder.length() > 0) strBuilder.append(' ');
+            if (currToken == Token.IDENT) {
+                strBuilder.append(identifiers.get(identCount++));
+            } else {
+                strBuilder.append(currToken.getCharRep());
+            }
+        }
+        return strBuilder.toString();
+    }
+
+    /**
+     * @param index Position in the list
+     * @return Number of identifiers before the position, which is the ordinal of an identifier at the position
+     */
+    private int identOrdinal(int index) {
+        int ordinal = 0;
+        for (int i = 0; i < index; i++) {
+            if (get(i) == Token.IDENT) ordinal++;
+        }
+        return ordinal;
+    }
+
+    /**
+     * @param token Token being added through the List methods
+     * @throws IllegalArgumentException if the token is an identifier, which needs a name
+     */
+    private static void checkNotIdent(Token token) {
+        if (token == Token.IDENT)
+            throw new IllegalArgumentException("Identifiers need a name, use addIdentifier()");
+    }
+
+    /**
+     * Helper method for the methods adding more than one token: Get the names of the identifiers being added
+     * @param tokens Tokens being added
+     * @return the names of the identifiers in the tokens
+     * @throws IllegalArgumentException if the tokens contain a Token.IDENT but aren't a TokenList
+     */
+    private static List<String> identifiersOf(Collection<? extends Token> tokens) {
+        if (tokens instanceof TokenList) return new ArrayList<>(((TokenList) tokens).identifiers);
+        for (Token token: tokens) {
+            checkNotIdent(token);
+        }
+        return Collections.emptyList();
+    }
+
+    @Override
+    public boolean add(Token token) {
+        checkNotIdent(token);
+        return super.add(token);
+    }
+
+    @Override
+    public void add(int index, Token token) {
+        checkNotIdent(token);
+        super.add(index, token);
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends Token> tokens) {
+        List<String> names = identifiersOf(tokens);
+        identifiers.addAll(names);
+        return super.addAll(tokens);
+    }
+
+    @Override
+    public boolean addAll(int index, Collection<? extends Token> tokens) {
+        rangeCheckForAdd(index);
+        List<String> names = identifiersOf(tokens);
+        identifiers.addAll(identOrdinal(index), names);
+        return super.addAll(index, tokens);
+    }
+
+    @Override
+    public Token set(int index, Token token) {
+        Token old = get(index);
+        if (old != Token.IDENT) {
+            checkNotIdent(token);
+        } else if (token != Token.IDENT) {
+            identifiers.remove(identOrdinal(index));
+        }
+        return super.set(index, token);
+    }
+
+    @Override
+    public Token remove(int index) {
+        if (get(index) == Token.IDENT) identifiers.remove(identOrdinal(index));
+        return super.remove(index);
+    }
+
+    @Override
+    public boolean remove(Object token) {
+        int index = indexOf(token);
+        if (index < 0) return false;
+        remove(index);
+        return true;
+    }
+
+    @Override
+    protected void removeRange(int fromIndex, int toIndex) {
+        if (fromIndex < toIndex) {
+            identifiers.subList(identOrdinal(fromIndex), identOrdinal(toIndex)).clear();
+        }
+        super.removeRange(fromIndex, toIndex);
+    }
+
+    @Override
+    public void clear() {
+        identifiers.clear();
+        super.clear();
+    }
+
+    @Override
+    public boolean removeIf(Predicate<? super Token> filter) {
+        boolean removed = false;
+        // Go backwards so the positions still to be checked don't move
+        for (int i = size() - 1; i >= 0; i--) {
+            if (filter.test(get(i))) {
+                remove(i);
+                removed = true;
+            }
+        }
+        return removed;
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> tokens) {
+        return removeIf(tokens::contains);
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> tokens) {
+        return removeIf(token -> !tokens.contains(token));
+    }
+
+    @Override
+    public void replaceAll(UnaryOperator<Token> operator) {
+        for (int i = 0; i < size(); i++) {
+            set(i, operator.apply(get(i)));
+        }
+    }
+
+    /**
+     * A view of part of the list. The view can't be changed since changes made through it would skip the names of
+     * the identifiers, use removeRange through clear() on the whole list or the other methods instead
+     * @param fromIndex First position of the view
+     * @param toIndex Position to stop at, which is not included
+     * @return a read only view of the tokens between the positions
+     */
+    @Override
+    public List<Token> subList(int fromIndex, int toIndex) {
+        return Collections.unmodifiableList(super.subList(fromIndex, toIndex));
+    }
+
+    /**
+     * Helper method for addAll: Check the position is somewhere a token can be inserted
+     * @param index Position to insert at
+     */
+    private void rangeCheckForAdd(int index) {
+        if (index < 0 || index > size())
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+    }
+
+    /**
+     * A TokenList is equal to another TokenList with the same tokens and names. A list that isn't a TokenList can't
+     * hold names so it is only equal if it has the same tokens and this list has no identifiers
+     * @param o Object to compare to
+     * @return true if the lists are equal
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) return true;
+        if (!super.equals(o)) return false;
+        if (o instanceof TokenList) return identifiers.equals(((TokenList) o).identifiers);
+        return identifiers.isEmpty();
+    }
+
+    @Override
+    public int hashCode() {
+        // Same as any other list with the same tokens when there are no names
+        return identifiers.isEmpty() ? super.hashCode() : 31 * super.hashCode() + identifiers.hashCode();
+    }
+}
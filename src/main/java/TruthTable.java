@@ -0,0 +1,117 @@
+import java.util.*;
+
+/**
+ * @author Richard Luong
+ * Truth table of an expression stored by column. Each variable and sub expression has a bit column where bit i is
+ * its truth value in row i, and the header naming each column is kept separately. The main expression is always the
+ * last column.
+ */
+public class TruthTable {
+    private List<String> header;
+    private long[][] columns;
+    private long rows;
+
+    /**
+     * Constructor
+     * @param header Name of each column, the variables followed by the sub expressions
+     * @param columns Bit column for each entry in the header
+     * @param rows Number of rows in the truth table
+     */
+    TruthTable(List<String> header, long[][] columns, long rows) {
+        this.header = Collections.unmodifiableList(new ArrayList<>(header));
+        this.columns = columns;
+        this.rows = rows;
+    }
+
+    /**
+     * @return Name of each column, the variables followed by the sub expressions
+     */
+    public List<String> getHeader() {
+        return header;
+    }
+
+    /**
+     * @return Number of columns including the variables
+     */
+    public int getNumColumns() {
+        return columns.length;
+    }
+
+    /**
+     * @return Number of rows not including the header
+     */
+    public long getNumRows() {
+        return rows;
+    }
+
+    /**
+     * Get the bit column of a variable or sub expression. The array is shared with the table so it must not be
+     * modified
+     * @param idx Position of the column in the header
+     * @return bit column where bit i is the truth value of row i
+     */
+    public long[] column(int idx) {
+        return columns[idx];
+    }
+
+    /**
+     * @param row Row in the truth table
+     * @param column Position of the column in the header
+     * @return Truth value of the column in the row
+     */
+    public boolean get(long row, int column) {
+        return BitColumns.get(columns[column], row);
+    }
+
+    /**
+     * @param row Row in the truth table
+     * @return Truth value of the main expression in the row
+     */
+    public boolean getResult(long row) {
+        return get(row, columns.length - 1);
+    }
+
+    /**
+     * @return bit column of the main expression, which must not be modified
+     */
+    public long[] getResultColumn() {
+        return columns[columns.length - 1];
+    }
+
+    /**
+     * View of the table as a list of rows where the first row is the header and each other row has "T" or "F" for
+     * every column. The rows are created from the bit columns as they are read so nothing extra is stored
+     * @return List of List of strings containing each element of the entire truth table
+     * @throws IllegalStateException if the table has too many rows for the size of a list, which happens from 31
+     * variables. Use ParseTreeRoot.rowIterator() or ParseTreeRoot.getRows() to go through larger tables
+     */
+    public List<List<String>> asList() {
+        // The header takes up a row of the list as well
+        if (rows >= Integer.MAX_VALUE)
+            throw new IllegalStateException("A truth table of " + rows + " rows is too large for a list, use "
+                    + "rowIterator() or getRows(offset, limit) instead");
+        return new AbstractList<List<String>>() {
+            @Override
+            public List<String> get(int index) {
+                if (index == 0) return header;
+                final long row = index - 1;
+                return new AbstractList<String>() {
+                    @Override
+                    public String get(int column) {
+                        return TruthTable.this.get(row, column) ? "T" : "F";
+                    }
+
+                    @Override
+                    public int size() {
+                        return columns.length;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return (int) (rows + 1);
+            }
+        };
+    }
+}
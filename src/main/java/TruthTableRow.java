@@ -0,0 +1,76 @@
+import java.util.*;
+
+/**
+ * @author Richard Luong
+ * A single row of a truth table given out when streaming the rows of a ParseTreeRoot. The row holds the current
+ * word of 64 rows of every column and the position of the row within that word, so the same object is reused for
+ * every row and moving to the next row doesn't allocate anything. Copy the values out with toStringList() if they
+ * need to be kept after moving to the next row.
+ */
+public class TruthTableRow {
+    private long[] columnWords;
+    private long rowNum;
+
+    /**
+     * Constructor
+     * @param numColumns Number of columns in the truth table including the variables
+     */
+    TruthTableRow(int numColumns) {
+        this.columnWords = new long[numColumns];
+    }
+
+    /**
+     * @return Buffer holding the current word of each column for the ParseTreeRoot to fill in
+     */
+    long[] getColumnWords() {
+        return columnWords;
+    }
+
+    /**
+     * Move the row to another row in the current word
+     * @param rowNum Position of the row in the truth table
+     */
+    void setRowNum(long rowNum) {
+        this.rowNum = rowNum;
+    }
+
+    /**
+     * @return Position of the row in the truth table, which also encodes the value of each variable
+     */
+    public long getRowNum() {
+        return rowNum;
+    }
+
+    /**
+     * @return Number of columns in the row including the variables
+     */
+    public int getNumColumns() {
+        return columnWords.length;
+    }
+
+    /**
+     * @param column Position of the column in the header of the truth table
+     * @return Truth value of the column in this row
+     */
+    public boolean get(int column) {
+        return (columnWords[column] & (1L << rowNum)) != 0;
+    }
+
+    /**
+     * @return Truth value of the main expression in this row
+     */
+    public boolean getResult() {
+        return get(columnWords.length - 1);
+    }
+
+    /**
+     * @return a new list with "T" or "F" for each column in the same form as getTruthTableAsList() in ParseTreeRoot
+     */
+    public List<String> toStringList() {
+        LinkedList<String> currRow = new LinkedList<>();
+        for (int i = 0; i < columnWords.length; i++) {
+            currRow.add(get(i) ? "T" : "F");
+        }
+        return currRow;
+    }
+}
@@ -0,0 +1,121 @@
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.*;
+
+/**
+ * @author Richard Luong
+ * Writes the rows of a truth table formatted like a table straight to a channel or Writer. The layout of a row is
+ * worked out once from the header, so writing a row only sets the truth value of each column in a reused row
+ * template and copies it into a reused buffer.
+ */
+public class TruthTableWriter {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private byte[] rowTemplate;
+    private int[] valuePositions;
+    private ByteBuffer buffer;
+    private char[] charBuffer;
+
+    /**
+     * Constructor
+     * @param header Header of the truth table which decides how wide each column is
+     */
+    public TruthTableWriter(List<String> header) {
+        // Each column is as wide as its expr in the header followed by a space, and a row ends with a new line
+        int rowLen = 1;
+        for (String currStr: header) {
+            rowLen += Math.max(currStr.length(), 1) + 1;
+        }
+        rowTemplate = new byte[rowLen];
+        Arrays.fill(rowTemplate, (byte) ' ');
+        rowTemplate[rowLen - 1] = '\n';
+        valuePositions = new int[header.size()];
+        int offset = 0;
+        for (int j = 0; j < header.size(); j++) {
+            // Truth values are put in the middle of the column if the length of the expr it came out of is > 1
+            int exprLen = header.get(j).length();
+            valuePositions[j] = offset + ((exprLen > 1) ? exprLen / 2 : 0);
+            offset += Math.max(exprLen, 1) + 1;
+        }
+        buffer = ByteBuffer.allocate(Math.max(BUFFER_SIZE, rowLen));
+    }
+
+    /**
+     * Write the rows to a channel. The header row is left as a blank line
+     * @param rows Rows of the truth table to write
+     * @param channel Channel to write to, which is not closed afterwards
+     * @throws IOException if the channel can't be written to
+     */
+    public void write(Iterator<TruthTableRow> rows, WritableByteChannel channel) throws IOException {
+        writeRows(rows, channel, null);
+    }
+
+    /**
+     * Write the rows to a Writer. The header row is left as a blank line
+     * @param rows Rows of the truth table to write
+     * @param writer Writer to write to, which is not closed or flushed afterwards
+     * @throws IOException if the writer can't be written to
+     */
+    public void write(Iterator<TruthTableRow> rows, Writer writer) throws IOException {
+        if (charBuffer == null) {
+            charBuffer = new char[buffer.capacity()];
+        }
+        writeRows(rows, null, writer);
+    }
+
+    /**
+     * Fill the buffer with formatted rows and drain it to either the channel or the writer whenever it is full
+     * @param rows Rows of the truth table to write
+     * @param channel Channel to write to or null if writing to the writer
+     * @param writer Writer to write to or null if writing to the channel
+     * @throws IOException if the channel or writer can't be written to
+     */
+    private void writeRows(Iterator<TruthTableRow> rows, WritableByteChannel channel, Writer writer)
+            throws IOException {
+        long start = Metrics.getInstance().start();
+        long bytes = 0;
+        buffer.clear();
+        buffer.put((byte) '\n');
+        while (rows.hasNext()) {
+            TruthTableRow currRow = rows.next();
+            for (int j = 0; j < valuePositions.length; j++) {
+                rowTemplate[valuePositions[j]] = (byte) (currRow.get(j) ? 'T' : 'F');
+            }
+            if (buffer.remaining() < rowTemplate.length) {
+                bytes += drain(channel, writer);
+            }
+            buffer.put(rowTemplate);
+        }
+        bytes += drain(channel, writer);
+        Metrics.getInstance().addBytesRendered(bytes);
+        Metrics.getInstance().stop(Metrics.Phase.RENDER, start);
+    }
+
+    /**
+     * Write out everything in the buffer and clear it
+     * @param channel Channel to write to or null if writing to the writer
+     * @param writer Writer to write to or null if writing to the channel
+     * @return number of bytes written
+     * @throws IOException if the channel or writer can't be written to
+     */
+    private int drain(WritableByteChannel channel, Writer writer) throws IOException {
+        buffer.flip();
+        int written = buffer.remaining();
+        if (channel != null) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } else {
+            // Rows only ever hold ASCII characters so each byte is a char
+            int len = buffer.remaining();
+            for (int i = 0; i < len; i++) {
+                charBuffer[i] = (char) buffer.get();
+            }
+            writer.write(charBuffer, 0, len);
+        }
+        buffer.clear();
+        return written;
+    }
+}
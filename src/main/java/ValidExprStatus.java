@@ -11,7 +11,8 @@ public enum ValidExprStatus {
     ADJACENT_OPERATORS("Invalid: Two operators founds adjacent to each other excluding(2 NOT operators)"),
     ADJACENT_PARENTHESES("Invalid: A pair of parentheses found adjacent to each other ()"),
     ADJACENT_VARIABLES("Invalid: Two variables found adjacent to each other"),
-    LHS_OR_RHS_OF_OPERATOR_INVALID("Invalid: LHS or RHS of one of the operators is not a valid sub expression");
+    LHS_OR_RHS_OF_OPERATOR_INVALID("Invalid: LHS or RHS of one of the operators is not a valid sub expression"),
+    UNKNOWN_SYMBOL("Invalid: Expression contains a symbol that is not a variable, operator or parenthesis");
 
     private String msg;
 
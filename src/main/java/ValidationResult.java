@@ -0,0 +1,42 @@
+/**
+ * @author Richard Luong
+ * Result of validating an expression with Parser.validate(). Holds the ValidExprStatus along with the position in
+ * the input of the character that made the expression invalid.
+ */
+public class ValidationResult {
+    private ValidExprStatus status;
+    private int offset;
+
+    /**
+     * Constructor
+     * @param status Whether the expression was valid or not
+     * @param offset Position of the offending character, or -1 if the expression was valid
+     */
+    ValidationResult(ValidExprStatus status, int offset) {
+        this.status = status;
+        this.offset = offset;
+    }
+
+    /**
+     * @return ValidExprStatus.VALID_EXPR if valid, otherwise another enum detailing why it was invalid
+     */
+    public ValidExprStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * Get where the expression stopped being valid. An error that is only found at the end of the expression, such as
+     * an unclosed parenthesis or an operator with nothing on its RHS, is reported at the length of the input
+     * @return position of the offending character in the input, or -1 if the expression was valid
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    /**
+     * @return true if the expression was valid
+     */
+    public boolean isValid() {
+        return status == ValidExprStatus.VALID_EXPR;
+    }
+}
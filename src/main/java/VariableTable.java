@@ -0,0 +1,66 @@
+import java.util.*;
+
+/**
+ * @author Richard Luong
+ * Symbol table that interns the name of each variable in an expression into a dense integer id. Ids are given out
+ * in the order the variables are first seen, which is also the order of the variables in the truth table header.
+ */
+public class VariableTable {
+    private HashMap<String, Integer> ids;
+    private ArrayList<String> names;
+
+    /**
+     * Constructor: Creates an empty table
+     */
+    public VariableTable() {
+        this.ids = new HashMap<>();
+        this.names = new ArrayList<>();
+    }
+
+    /**
+     * Get the id of a variable, giving it the next free id if it hasn't been seen before
+     * @param name Name of the variable
+     * @return id of the variable
+     */
+    public int intern(String name) {
+        Integer id = ids.get(name);
+        if (id == null) {
+            id = names.size();
+            ids.put(name, id);
+            names.add(name);
+        }
+        return id;
+    }
+
+    /**
+     * Get the id of a variable without adding it to the table
+     * @param name Name of the variable
+     * @return id of the variable or -1 if it is not in the table
+     */
+    public int getId(String name) {
+        Integer id = ids.get(name);
+        return (id == null) ? -1 : id;
+    }
+
+    /**
+     * @param id Id of a variable
+     * @return Name of the variable
+     */
+    public String getName(int id) {
+        return names.get(id);
+    }
+
+    /**
+     * @return Names of all the variables ordered by their id
+     */
+    public List<String> getNames() {
+        return Collections.unmodifiableList(names);
+    }
+
+    /**
+     * @return Number of variables in the table
+     */
+    public int size() {
+        return names.size();
+    }
+}
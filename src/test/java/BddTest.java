@@ -0,0 +1,106 @@
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.math.BigInteger;
+import java.util.LinkedList;
+import java.util.Random;
+
+public class BddTest {
+
+    private static Parser p = Parser.getInstance();
+
+    private static ParseTreeRoot tree(String input) {
+        return p.createParseTree(p.createTokensFromInput(input));
+    }
+
+    private static long countTrueRows(ParseTreeRoot root) {
+        long count = 0;
+        for (long word: root.getResultColumn()) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    @Test
+    public void DeMorganTest() {
+        Bdd bdd = new Bdd(2);
+        int f = bdd.build(tree("~(P^Q)"));
+        int g = bdd.build(tree("~PV~Q"));
+        assertEquals(f, g);
+        assertTrue(bdd.isTautology(bdd.apply(Token.BICOND, f, g)));
+    }
+
+    @Test
+    public void TautologyAndContradictionTest() {
+        Bdd bdd = new Bdd(3);
+        assertTrue(bdd.isTautology(bdd.build(tree("(P>Q)^(Q>R)>(P>R)"))));
+        assertTrue(bdd.isContradiction(bdd.build(tree("P^~P"))));
+        assertFalse(bdd.isTautology(bdd.build(tree("P>Q"))));
+    }
+
+    @Test
+    public void CountModelsMatchesTableTest() {
+        Random random = new Random(3);
+        char[] connectives = {'^', 'V', '>', '='};
+        for (int i = 0; i < 200; i++) {
+            StringBuilder input = new StringBuilder();
+            int length = 1 + random.nextInt(12);
+            for (int j = 0; j < length; j++) {
+                if (j > 0) input.append(connectives[random.nextInt(connectives.length)]);
+                if (random.nextBoolean()) input.append('~');
+                input.append('v').append(random.nextInt(7));
+            }
+            ParseTreeRoot root = tree(input.toString());
+            Bdd bdd = new Bdd(root.getNumVariables());
+            int f = bdd.build(root);
+            assertEquals(input.toString(), BigInteger.valueOf(countTrueRows(root)), bdd.countModels(f));
+            boolean[] model = bdd.anySat(f, true);
+            if (model != null) {
+                assertTrue(root.evalTree(root.getRoot(), model, new LinkedList<String>()));
+            } else {
+                assertTrue(bdd.isContradiction(f));
+            }
+        }
+    }
+
+    @Test
+    public void CountModelsManyVariablesTest() {
+        StringBuilder input = new StringBuilder("v0");
+        for (int i = 1; i < 100; i++) {
+            input.append("Vv").append(i);
+        }
+        Bdd bdd = new Bdd(100);
+        int f = bdd.build(tree(input.toString()));
+        // Every assignment apart from all false
+        assertEquals(BigInteger.ONE.shiftLeft(100).subtract(BigInteger.ONE), bdd.countModels(f));
+        assertEquals(102, bdd.size(f));
+    }
+
+    @Test
+    public void VariableOrderTest() {
+        // a1 b1 a2 b2 a3 b3 keeps each pair together, a1 a2 a3 b1 b2 b3 has to remember every a
+        ParseTreeRoot root = tree("(a1^b1)V(a2^b2)V(a3^b3)");
+        Bdd interleaved = new Bdd(new int[] {0, 1, 2, 3, 4, 5});
+        Bdd separated = new Bdd(new int[] {0, 2, 4, 1, 3, 5});
+        int f = interleaved.build(root);
+        int g = separated.build(root);
+        assertEquals(8, interleaved.size(f));
+        assertTrue(separated.size(g) > interleaved.size(f));
+        assertEquals(interleaved.countModels(f), separated.countModels(g));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void InvalidOrderTest() {
+        new Bdd(new int[] {0, 0, 1});
+    }
+
+    @Test
+    public void AreEquivalentTest() {
+        // Q only appears in the first expression and doesn't change its value
+        assertTrue(Bdd.areEquivalent(tree("P^(QV~Q)"), tree("P")).getAnswer());
+        QueryResult result = Bdd.areEquivalent(tree("P>Q"), tree("Q>P"));
+        assertFalse(result.getAnswer());
+        boolean[] model = result.getModel();
+        // Implication only differs from its converse when exactly one side is true
+        assertTrue(model[0] != model[1]);
+    }
+}
@@ -0,0 +1,46 @@
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class BitColumnsTest {
+
+    private static Parser p = Parser.getInstance();
+
+    // Columns of every variable and operator slot of an expression
+    private static long[][] columns(String input) {
+        return p.createParseTree(p.createTokensFromInput(input)).getCompiledExpr().evalColumns(1);
+    }
+
+    @Test
+    public void VariableColumnTest0() {
+        // P, Q, R in the standard form FFFFTTTT, FFTTFFTT and FTFTFTFT
+        long[][] columns = columns("PVQVR");
+        assertEquals(0b11110000L, columns[0][0]);
+        assertEquals(0b11001100L, columns[1][0]);
+        assertEquals(0b10101010L, columns[2][0]);
+    }
+
+    @Test
+    public void VariableColumnTest1() {
+        // The first of 8 variables is false for the first 128 rows and true for the last 128
+        long[] column = columns("aVbVcVdVeVfVgVh")[0];
+        assertEquals(4, column.length);
+        for (long i = 0; i < 256; i++) {
+            assertEquals(i >= 128, BitColumns.get(column, i));
+        }
+    }
+
+    @Test
+    public void NotClearsUnusedRowsTest() {
+        long[][] columns = columns("~P");
+        assertEquals(0b01L, columns[1][0]);
+    }
+
+    @Test
+    public void VariableWordTest() {
+        // The first of 8 variables holds the same value for a whole word
+        assertEquals(0L, BitColumns.variableWord(0, 8, 1));
+        assertEquals(-1L, BitColumns.variableWord(0, 8, 2));
+        assertEquals(0xAAAAAAAAAAAAAAAAL, BitColumns.variableWord(7, 8, 3));
+    }
+
+}
@@ -0,0 +1,71 @@
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class ColumnLimitTest {
+
+    private static Parser p = Parser.getInstance();
+
+    // Expression with every variable from v0 up to numVars - 1 joined by AND
+    private static ParseTreeRoot chain(int numVars) {
+        StringBuilder input = new StringBuilder("v0");
+        for (int i = 1; i < numVars; i++) {
+            input.append("^v").append(i);
+        }
+        return p.createParseTree(p.createTokensFromInput(input.toString()));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void ResultColumnTest() {
+        chain(37).getResultColumn();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void ParallelResultColumnTest() {
+        chain(40).getResultColumn(4);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void ShortCircuitResultColumnTest() {
+        chain(40).getResultColumnShortCircuit();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void GenerateTruthTableTest() {
+        chain(37).generateTruthTable();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void GrayCodeTruthTableTest() {
+        chain(37).generateTruthTableGrayCode();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void TruthTableResultsTest() {
+        chain(40).getTruthTableResults();
+    }
+
+    @Test
+    public void LimitMessageTest() {
+        try {
+            chain(40).getTruthTable();
+            fail();
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage().contains(String.valueOf(ParseTreeRoot.MAX_COLUMN_VARIABLES)));
+        }
+    }
+
+    @Test
+    public void RowsPastColumnLimitTest() {
+        // Rows that aren't stored can still be gone through past the column limit
+        ParseTreeRoot root = chain(40);
+        assertEquals(1L << 40, root.getNumRows());
+        assertEquals(1, root.getRows(root.getNumRows() - 1, 10).size());
+        assertTrue(root.isSatisfiable().getAnswer());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void WordCountTest() {
+        assertEquals(1 << 30, BitColumns.wordCount(1L << 36));
+        BitColumns.wordCount(1L << 37);
+    }
+}
@@ -0,0 +1,35 @@
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.ArrayList;
+
+public class CompiledExprTest {
+
+    private static Parser p = Parser.getInstance();
+
+    @Test
+    public void PostfixOrderTest() {
+        String input = "~P^Q";
+        ArrayList<Token> tokens = p.createTokensFromInput(input);
+        ParseTreeRoot root = p.createParseTree(tokens);
+        CompiledExpr expr = root.getCompiledExpr();
+        assertEquals(2, expr.getNumVars());
+        assertEquals(2, expr.getNumOperators());
+        int[] code = {CompiledExpr.LOAD, CompiledExpr.NOT, (1 << CompiledExpr.OPCODE_BITS) | CompiledExpr.LOAD,
+                CompiledExpr.AND};
+        assertArrayEquals(code, expr.getCode());
+        assertEquals(code.length, expr.getCodeLength());
+    }
+
+    @Test
+    public void SingleRowMatchesTableTest() {
+        String input = "P^Q=~RVS>W";
+        ArrayList<Token> tokens = p.createTokensFromInput(input);
+        ParseTreeRoot root = p.createParseTree(tokens);
+        CompiledExpr expr = root.getCompiledExpr();
+        ArrayList<Boolean> output = root.getTruthTableResults();
+        for (int i = 0; i < output.size(); ++i) {
+            assertEquals(output.get(i), expr.eval(i));
+        }
+    }
+
+}
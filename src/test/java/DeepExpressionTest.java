@@ -0,0 +1,96 @@
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.List;
+
+public class DeepExpressionTest {
+
+    private static Parser p = Parser.getInstance();
+
+    // Operators with the same precedence are right associative so the tree is as deep as the chain is long
+    private static String chain(int length) {
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            input.append("P^");
+        }
+        return input.append('Q').toString();
+    }
+
+    @Test
+    public void CompileDeepChainTest() {
+        ParseTreeRoot root = p.createParseTree(p.createTokensFromInput(chain(10000)));
+        // Every P^ adds an operator since each one has a different RHS
+        assertEquals(10000, root.getCompiledExpr().getNumOperators());
+        assertEquals(1, root.countModels());
+        // Only true in row 3, where P and Q are both true
+        assertEquals(0b1000L, root.getResultColumn()[0]);
+    }
+
+    @Test
+    public void CompileDeepNestingTest() {
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            input.append("(~P>");
+        }
+        input.append('Q');
+        for (int i = 0; i < 5000; i++) {
+            input.append(')');
+        }
+        ParseTreeRoot root = p.createParseTree(p.createTokensFromInput(input.toString()));
+        // ~P>(...) is true whenever P is true, and the innermost Q decides the rest
+        assertEquals(3, root.countModels());
+    }
+
+    // Run a test on a thread with a small stack so that walking a deep tree recursively would overflow it
+    private static void runWithSmallStack(Runnable test) throws Throwable {
+        Throwable[] error = new Throwable[1];
+        Thread thread = new Thread(null, () -> {
+            try {
+                test.run();
+            } catch (Throwable e) {
+                error[0] = e;
+            }
+        }, "small-stack", 1 << 17);
+        thread.start();
+        thread.join();
+        if (error[0] != null) throw error[0];
+    }
+
+    @Test
+    public void DeepExpressionStringTest() throws Throwable {
+        ParseTreeRoot root = p.createParseTree(p.createTokensFromInput(chain(20000)));
+        runWithSmallStack(() -> {
+            String expr = root.getExpression();
+            assertTrue(expr.startsWith("P\u2227(P\u2227("));
+            // Every P^ after the first opens a parenthesis that is closed at the end
+            assertEquals(4 * 20000 - 1, expr.length());
+            assertEquals(expr.length() - 19999 - 4, expr.lastIndexOf("(P\u2227Q)"));
+        });
+    }
+
+    @Test
+    public void DeepHeaderTest() throws Throwable {
+        ParseTreeRoot root = p.createParseTree(p.createTokensFromInput(chain(3000)));
+        runWithSmallStack(() -> {
+            List<String> header = root.getHeader();
+            assertEquals(3002, header.size());
+            assertEquals("P\u2227Q", header.get(2));
+            assertEquals(root.getExpression(), header.get(3001));
+        });
+    }
+
+    @Test
+    public void MethodHandleDeepChainTest() throws Throwable {
+        // Deeper than MAX_DEPTH so it is evaluated without generating handles
+        ParseTreeRoot deep = p.createParseTree(p.createTokensFromInput(chain(10000)));
+        // A chain of MAX_DEPTH - 1 operators has MAX_DEPTH levels so it still gets handles
+        ParseTreeRoot shallow = p.createParseTree(p.createTokensFromInput(chain(MethodHandleExpr.MAX_DEPTH - 1)));
+        runWithSmallStack(() -> {
+            for (ParseTreeRoot root: new ParseTreeRoot[] {deep, shallow}) {
+                MethodHandleExpr expr = MethodHandleExpr.forTree(root);
+                for (int row = 0; row < 4; row++) {
+                    assertEquals(row == 3, expr.eval(row));
+                }
+            }
+        });
+    }
+}
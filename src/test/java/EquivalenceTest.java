@@ -0,0 +1,86 @@
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.Map;
+
+public class EquivalenceTest {
+
+    private static Parser p = Parser.getInstance();
+
+    @Test
+    public void EquivalentTest() {
+        assertTrue(p.areEquivalent("~(P^Q)", "~PV~Q").getAnswer());
+        assertTrue(p.areEquivalent("P>Q", "~PVQ").getAnswer());
+        assertTrue(p.areEquivalent("P=Q", "(P>Q)^(Q>P)").getAnswer());
+        assertFalse(p.areEquivalent("P=Q", "(P>Q)^(Q>P)").hasWitness());
+    }
+
+    @Test
+    public void DifferentVariablesTest() {
+        // Q doesn't change the value of the first expression
+        assertTrue(p.areEquivalent("P^(QV~Q)", "P").getAnswer());
+        QueryResult result = p.areEquivalent("P", "Q");
+        assertFalse(result.getAnswer());
+        assertEquals(1, result.getAssignment());
+    }
+
+    @Test
+    public void CounterexampleTest() {
+        QueryResult result = p.areEquivalent("P>Q", "Q>P");
+        assertFalse(result.getAnswer());
+        Map<String, Boolean> values = result.getValues();
+        assertEquals(Boolean.FALSE, values.get("P"));
+        assertEquals(Boolean.TRUE, values.get("Q"));
+    }
+
+    @Test
+    public void LastRowTest() {
+        StringBuilder input = new StringBuilder("v0");
+        for (int i = 1; i < 10; i++) {
+            input.append("^v").append(i);
+        }
+        // Only differs from a contradiction when every variable is true
+        QueryResult result = p.areEquivalent(input.toString(), "v3^~v3");
+        assertFalse(result.getAnswer());
+        assertEquals(1023, result.getAssignment());
+    }
+
+    @Test
+    public void ManyVariablesTest() {
+        StringBuilder first = new StringBuilder("v0");
+        StringBuilder second = new StringBuilder("v69");
+        for (int i = 1; i < 70; i++) {
+            first.append("Vv").append(i);
+            second.append("Vv").append(69 - i);
+        }
+        assertTrue(p.areEquivalent(first.toString(), second.toString()).getAnswer());
+        assertFalse(p.areEquivalent(first.toString(), second + "^v5").getAnswer());
+    }
+
+    // Expression with every variable from v0 up to numVars - 1 joined by the connective
+    private static String chain(int numVars, char connective) {
+        StringBuilder input = new StringBuilder("v0");
+        for (int i = 1; i < numVars; i++) {
+            input.append(connective).append('v').append(i);
+        }
+        return input.toString();
+    }
+
+    @Test
+    public void PastSolverThresholdTest() {
+        // Counts of variables either side of the largest number of words that fits in an int
+        for (int numVars: new int[] {20, 30, 36, 37, 40, 62}) {
+            QueryResult result = p.areEquivalent(chain(numVars, '^'), chain(numVars, 'V'));
+            assertFalse("Variables: " + numVars, result.getAnswer());
+            Map<String, Boolean> values = result.getValues();
+            // The chains only differ when some but not all of the variables are true
+            assertTrue(values.containsValue(Boolean.TRUE));
+            assertTrue(values.containsValue(Boolean.FALSE));
+            assertTrue(p.areEquivalent(chain(numVars, '^'), chain(numVars, '^') + "^(v0Vv1)").getAnswer());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void InvalidExprTest() {
+        p.areEquivalent("P^^Q", "P");
+    }
+}
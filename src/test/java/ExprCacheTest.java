@@ -0,0 +1,98 @@
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+public class ExprCacheTest {
+
+    @Test
+    public void HitAfterMissTest() {
+        ExprCache cache = new ExprCache(10, Long.MAX_VALUE);
+        ParseTreeRoot root = cache.get("P^Q");
+        // Whitespace is normalised away so this is the same expression
+        assertSame(root, cache.get(" P ^ Q "));
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(0b1000L, cache.getResultColumn("P^Q")[0]);
+    }
+
+    @Test
+    public void EntryLimitEvictionTest() {
+        ExprCache cache = new ExprCache(2, Long.MAX_VALUE);
+        cache.get("P");
+        cache.get("Q");
+        // Use P so that Q is the least recently used
+        cache.get("P");
+        cache.get("R");
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        cache.get("P");
+        assertEquals(3, cache.getMissCount());
+        cache.get("Q");
+        assertEquals(4, cache.getMissCount());
+    }
+
+    @Test
+    public void WeightLimitEvictionTest() {
+        ExprCache cache = new ExprCache(100, 30);
+        cache.get("P");
+        cache.get("Q");
+        cache.get("R");
+        assertTrue(cache.getWeight() <= 30);
+        assertTrue(cache.getEvictionCount() > 0);
+    }
+
+    @Test
+    public void HeavierThanLimitTest() {
+        // The result column of 10 variables weighs 128 bytes on its own
+        ExprCache cache = new ExprCache(10, 100);
+        ParseTreeRoot root = cache.get("v0^v1^v2^v3^v4^v5^v6^v7^v8^v9");
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getWeight());
+        // The tree still works, it just isn't kept
+        assertEquals(1, root.countModels());
+        cache.get("P");
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void PastColumnLimitTest() {
+        StringBuilder input = new StringBuilder("v0");
+        for (int i = 1; i < 40; i++) {
+            input.append("^v").append(i);
+        }
+        ExprCache cache = new ExprCache(10, Long.MAX_VALUE);
+        ParseTreeRoot root = cache.get(input.toString());
+        // Cached without a result column, so only the program is weighed
+        assertSame(root, cache.get(input.toString()));
+        assertTrue(cache.getWeight() < 1000);
+        assertEquals(1, root.getRows(root.getNumRows() - 1, 1).size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void InvalidExprTest() {
+        new ExprCache(10, Long.MAX_VALUE).get("P^^Q");
+    }
+
+    @Test
+    public void SingleFlightTest() throws Exception {
+        final ExprCache cache = new ExprCache(10, Long.MAX_VALUE);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<ParseTreeRoot>> futures = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                futures.add(executor.submit(() -> cache.get("v0^v1^v2^v3^v4^v5^v6^v7^v8^v9^v10^v11^v12^v13")));
+            }
+            ParseTreeRoot first = futures.get(0).get();
+            for (Future<ParseTreeRoot> future: futures) {
+                assertSame(first, future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1, cache.getMissCount());
+        assertEquals(31, cache.getHitCount());
+    }
+
+}
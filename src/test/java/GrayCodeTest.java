@@ -0,0 +1,56 @@
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.Iterator;
+import java.util.List;
+
+public class GrayCodeTest {
+
+    private static Parser p = Parser.getInstance();
+
+    private static ParseTreeRoot tree(String input) {
+        return p.createParseTree(p.createTokensFromInput(input));
+    }
+
+    private static final String[] INPUTS = {
+            "P",
+            "~P",
+            "P^P",
+            "(P>Q)^(R=~S)V(P^S)",
+            "(P^Q)V(P^Q)>~(P^Q)",
+            "(v0=v1)>(v2^~v3)V(v4=v5)^(v6Vv7)=(v8>v9)V(v10^v11)"
+    };
+
+    @Test
+    public void GrayCodeTableMatchesTest() {
+        for (String input: INPUTS) {
+            ParseTreeRoot gray = tree(input);
+            gray.generateTruthTableGrayCode();
+            assertEquals(input, tree(input).getTruthTableAsList(), gray.getTruthTableAsList());
+            assertEquals(input, tree(input).countModels(), gray.countModels());
+        }
+    }
+
+    @Test
+    public void GrayCodeOrderTest() {
+        ParseTreeRoot root = tree("(P>Q)^(R=~S)V(P^S)");
+        List<List<String>> table = tree("(P>Q)^(R=~S)V(P^S)").getTruthTableAsList();
+        Iterator<TruthTableRow> it = root.grayCodeRowIterator();
+        long prevRow = -1;
+        for (long i = 0; i < root.getNumRows(); i++) {
+            TruthTableRow row = it.next();
+            assertEquals(i ^ (i >>> 1), row.getRowNum());
+            // Exactly one variable changes from one row to the next
+            if (prevRow >= 0) assertEquals(1, Long.bitCount(prevRow ^ row.getRowNum()));
+            prevRow = row.getRowNum();
+            assertEquals(table.get((int) row.getRowNum() + 1), row.toStringList());
+        }
+        assertFalse(it.hasNext());
+    }
+
+    @Test
+    public void GrayCodeStreamTest() {
+        ParseTreeRoot root = tree("(v0=v1)>(v2^~v3)V(v4=v5)^(v6Vv7)=(v8>v9)V(v10^v11)");
+        assertEquals(root.getNumRows(), root.grayCodeRows().count());
+        assertEquals(root.countModels(), root.grayCodeRows().filter(TruthTableRow::getResult).count());
+    }
+}
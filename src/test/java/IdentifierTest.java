@@ -0,0 +1,77 @@
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class IdentifierTest {
+
+    private static Parser p = Parser.getInstance();
+
+    @Test
+    public void MultiCharacterIdentifierTest() {
+        String input = "req_ok ^ ~timeout1 V P";
+        ArrayList<Token> tokens = p.createTokensFromInput(input);
+        assertEquals(ValidExprStatus.VALID_EXPR, p.isValidExpr(tokens));
+        ParseTreeRoot root = p.createParseTree(tokens);
+        assertEquals(Arrays.asList("req_ok", "timeout1", "P"), root.getVariables());
+        List<String> header = root.getTruthTableAsList().get(0);
+        assertEquals(Arrays.asList("req_ok", "timeout1", "P", "\u00ACtimeout1", "req_ok\u2227(\u00ACtimeout1)",
+                "(req_ok\u2227(\u00ACtimeout1))\u2228P"), header);
+        boolean answers[] = {false, true, false, true, true, true, false, true};
+        ArrayList<Boolean> output = root.getTruthTableResults();
+        for (int i = 0; i < answers.length; ++i) {
+            assertEquals(answers[i], output.get(i));
+        }
+    }
+
+    @Test
+    public void RepeatedIdentifierTest() {
+        String input = "ab>(ab^b)";
+        ArrayList<Token> tokens = p.createTokensFromInput(input);
+        ParseTreeRoot root = p.createParseTree(tokens);
+        assertEquals(2, root.getNumVariables());
+        boolean answers[] = {true, true, false, true};
+        ArrayList<Boolean> output = root.getTruthTableResults();
+        for (int i = 0; i < answers.length; ++i) {
+            assertEquals(answers[i], output.get(i));
+        }
+    }
+
+    @Test
+    public void AdjacentIdentifiersTest() {
+        String input = "ab cd";
+        ArrayList<Token> tokens = p.createTokensFromInput(input);
+        assertEquals(ValidExprStatus.ADJACENT_VARIABLES, p.isValidExpr(tokens));
+    }
+
+    @Test
+    public void ManyVariablesTest() {
+        StringBuilder input = new StringBuilder("v0");
+        for (int i = 1; i < 24; i++) {
+            input.append("^v").append(i);
+        }
+        ParseTreeRoot root = p.createParseTree(p.createTokensFromInput(input.toString()));
+        assertEquals(24, root.getNumVariables());
+        assertEquals(1L << 24, root.getNumRows());
+        long[] column = root.getResultColumn();
+        long count = 0;
+        for (long word: column) {
+            count += Long.bitCount(word);
+        }
+        // Only the last row has every variable true
+        assertEquals(1, count);
+        assertTrue(BitColumns.get(column, (1L << 24) - 1));
+    }
+
+    @Test
+    public void RowCountPastIntTest() {
+        StringBuilder input = new StringBuilder("v0");
+        for (int i = 1; i < 40; i++) {
+            input.append("Vv").append(i);
+        }
+        ParseTreeRoot root = p.createParseTree(p.createTokensFromInput(input.toString()));
+        assertEquals(1L << 40, root.getNumRows());
+    }
+
+}
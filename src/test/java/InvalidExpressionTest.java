@@ -104,5 +104,48 @@ public class InvalidExpressionTest {
         assertEquals(ValidExprStatus.LHS_OR_RHS_OF_OPERATOR_INVALID, p.isValidExpr(tokens));
     }
 
+    @Test
+    public void GroupedSubExprAdjacentTest() {
+        assertEquals(ValidExprStatus.ADJACENT_VARIABLES, p.isValidExpr(p.createTokensFromInput("(P)Q")));
+        assertEquals(ValidExprStatus.ADJACENT_VARIABLES, p.isValidExpr(p.createTokensFromInput("P(Q)")));
+        assertEquals(ValidExprStatus.ADJACENT_VARIABLES, p.isValidExpr(p.createTokensFromInput("(P)(Q)")));
+    }
 
+    @Test
+    public void UnknownSymbolTest() {
+        ValidationResult result = p.validate("P^#Q");
+        assertEquals(ValidExprStatus.UNKNOWN_SYMBOL, result.getStatus());
+        assertEquals(2, result.getOffset());
+        assertEquals(ValidExprStatus.UNKNOWN_SYMBOL, p.isValidExpr(p.createTokensFromInput("P^#Q")));
+    }
+
+    @Test
+    public void ValidateOffsetTest() {
+        assertEquals(-1, p.validate("(P V Q)").getOffset());
+        assertEquals(0, p.validate(")PVQ(").getOffset());
+        // Unclosed parenthesis and a missing RHS are found at the end of the input
+        assertEquals(4, p.validate("(PVQ").getOffset());
+        assertEquals(2, p.validate("P^").getOffset());
+        assertEquals(2, p.validate("P^^Q").getOffset());
+        assertEquals(5, p.validate("(P)=()").getOffset());
+        assertEquals(6, p.validate("ready xyz").getOffset());
+        assertEquals(ValidExprStatus.ADJACENT_VARIABLES, p.validate("ready xyz").getStatus());
+    }
+
+    @Test
+    public void ValidateMatchesTokenValidationTest() {
+        String[] inputs = {"", "PP", "^^", "P~Q", "(PVQ", ")PVQ(", "=", "(PVQ)^(WVS)=((XVY)", "(PVQ)=~()",
+                "PV~)", "PV(Q~)", "(~)P", "~~P", "(P^Q)>~(RVS)", "P V ~", "(^P)"};
+        for (String input: inputs) {
+            assertEquals(input, p.isValidExpr(p.createTokensFromInput(input)), p.validate(input).getStatus());
+        }
+    }
+
+    @Test
+    public void ParseRejectsInvalidTest() {
+        ParseResult result = p.parse("P^^Q");
+        assertFalse(result.isValid());
+        assertNull(result.getTree());
+        assertEquals(ValidExprStatus.ADJACENT_OPERATORS, result.getStatus());
+    }
 }
@@ -0,0 +1,45 @@
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.ArrayList;
+
+public class MethodHandleExprTest {
+
+    private static Parser p = Parser.getInstance();
+
+    @Test
+    public void MatchesTruthTableTest() {
+        String[] inputs = {"P", "~P", "P^Q", "PVQ", "P>Q", "P=Q", "P^Q=~RVS>W", "~(~(~(~P)))"};
+        for (String input: inputs) {
+            ArrayList<Token> tokens = p.createTokensFromInput(input);
+            ParseTreeRoot root = p.createParseTree(tokens);
+            MethodHandleExpr expr = MethodHandleExpr.forTree(root);
+            ArrayList<Boolean> output = root.getTruthTableResults();
+            for (int i = 0; i < output.size(); ++i) {
+                assertEquals(output.get(i), expr.eval(i));
+            }
+        }
+    }
+
+    @Test
+    public void CachedPerExpressionTest() {
+        ParseTreeRoot root0 = p.createParseTree(p.createTokensFromInput("P>(QVR)"));
+        ParseTreeRoot root1 = p.createParseTree(p.createTokensFromInput("P>(QVR)"));
+        assertSame(MethodHandleExpr.forTree(root0), MethodHandleExpr.forTree(root1));
+    }
+
+    @Test
+    public void CacheBoundedTest() {
+        // Distinct expressions, each one with a different number of variables in a chain
+        for (int i = 0; i < MethodHandleExpr.MAX_CACHED + 50; i++) {
+            StringBuilder input = new StringBuilder("v0");
+            for (int j = 1; j <= i % 50; j++) {
+                input.append(i % 2 == 0 ? "^v" : "Vv").append(j);
+            }
+            input.append("^~v").append(i / 50);
+            MethodHandleExpr.forTree(p.createParseTree(p.createTokensFromInput(input.toString())));
+            assertTrue(MethodHandleExpr.cacheSize() <= MethodHandleExpr.MAX_CACHED);
+        }
+        assertEquals(MethodHandleExpr.MAX_CACHED, MethodHandleExpr.cacheSize());
+    }
+
+}
@@ -0,0 +1,69 @@
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.io.ByteArrayOutputStream;
+import java.lang.management.ManagementFactory;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+public class MetricsTest {
+
+    private static Parser p = Parser.getInstance();
+
+    @Test
+    public void DisabledRecordsNothingTest() throws Exception {
+        Metrics metrics = Metrics.getInstance();
+        metrics.setEnabled(false);
+        metrics.reset();
+        ParseTreeRoot root = p.createParseTree(p.createTokensFromInput("P^Q"));
+        root.generateTruthTable();
+        root.writeTruthTable(new ByteArrayOutputStream());
+        for (Metrics.Phase phase: Metrics.Phase.values()) {
+            assertEquals(0, metrics.getCalls(phase));
+            assertEquals(0, metrics.getNanos(phase));
+        }
+        assertEquals(0, metrics.getRowsEvaluated());
+        assertEquals(0, metrics.getNodesBuilt());
+        assertEquals(0, metrics.getBytesRendered());
+    }
+
+    @Test
+    public void EnabledRecordsEachPhaseTest() throws Exception {
+        Metrics metrics = Metrics.getInstance();
+        metrics.reset();
+        metrics.setEnabled(true);
+        try {
+            String input = "(P^Q)V(P^Q)VR";
+            assertTrue(p.validate(input).isValid());
+            ParseTreeRoot root = p.createParseTree(p.createTokensFromInput(input));
+            root.generateTruthTable();
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            root.writeTruthTable(out);
+            assertEquals(1, metrics.getCalls(Metrics.Phase.TOKENIZE));
+            assertEquals(1, metrics.getCalls(Metrics.Phase.VALIDATE));
+            assertEquals(1, metrics.getCalls(Metrics.Phase.BUILD_TREE));
+            assertEquals(1, metrics.getCalls(Metrics.Phase.EVALUATE));
+            assertEquals(1, metrics.getCalls(Metrics.Phase.RENDER));
+            // P, Q, R, P^Q, (P^Q)VR and the root since the repeated P^Q is a single node
+            assertEquals(6, metrics.getNodesBuilt());
+            // 8 rows evaluated for the table then again while rendering
+            assertEquals(16, metrics.getRowsEvaluated());
+            assertEquals(out.size(), metrics.getBytesRendered());
+        } finally {
+            metrics.setEnabled(false);
+            metrics.reset();
+        }
+    }
+
+    @Test
+    public void MBeanTest() throws Exception {
+        Metrics.registerMBean();
+        // Registering again does nothing
+        Metrics.registerMBean();
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(Metrics.OBJECT_NAME);
+        assertTrue(server.isRegistered(name));
+        assertEquals(Boolean.FALSE, server.getAttribute(name, "Enabled"));
+        assertEquals(0L, server.getAttribute(name, "RowsEvaluated"));
+        assertNotNull(server.getAttribute(name, "PhaseNanos"));
+    }
+}
@@ -99,4 +99,53 @@ public class MixedOperatorsTest {
         }
     }
 
+    @Test
+    public void PrecedenceInsideParenthesesTest() {
+        String input = "~(P^QVR)";
+        ArrayList<Token> tokens = p.createTokensFromInput(input);
+        assertEquals(ValidExprStatus.VALID_EXPR, p.isValidExpr(tokens));
+        ParseTreeRoot root = p.createParseTree(tokens);
+        boolean answers[] = {true, false, true, false, true, false, false, false};
+        ArrayList<Boolean> output = root.getTruthTableResults();
+        for (int i = 0; i < output.size(); ++i) {
+            assertEquals(answers[i], output.get(i));
+        }
+    }
+
+    @Test
+    public void LongExpressionTest() {
+        StringBuilder input = new StringBuilder("P");
+        for (int i = 0; i < 2000; ++i) {
+            input.append((i % 2 == 0) ? "^~Q" : "VP");
+        }
+        ArrayList<Token> tokens = p.createTokensFromInput(input.toString());
+        assertEquals(ValidExprStatus.VALID_EXPR, p.isValidExpr(tokens));
+        ParseTreeRoot root = p.createParseTree(tokens);
+        // Every ^ has more precedence so the expression is (P^~Q)V(P^~Q)V...VP
+        boolean answers[] = {false, false, true, true};
+        ArrayList<Boolean> output = root.getTruthTableResults();
+        for (int i = 0; i < output.size(); ++i) {
+            assertEquals(answers[i], output.get(i));
+        }
+    }
+
+    @Test
+    public void LongExpressionStringTest() {
+        StringBuilder input = new StringBuilder("P");
+        StringBuilder expected = new StringBuilder("P");
+        for (int i = 0; i < 2000; ++i) {
+            input.append("=Q");
+            expected.append("\u2194(Q");
+        }
+        for (int i = 0; i < 2000; ++i) {
+            expected.append(')');
+        }
+        ParseTreeRoot root = p.createParseTree(p.createTokensFromInput(input.toString()));
+        // Every = is right associative so the expression is P=(Q=(Q=...)) with the innermost group being Q=Q
+        String exprStr = root.getExpression();
+        assertEquals(expected.toString().replace("(Q)", "Q"), exprStr);
+        assertSame(exprStr, root.getExpression());
+        assertEquals(2002, root.getTruthTable().getNumColumns());
+    }
+
 }
@@ -0,0 +1,85 @@
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.math.BigInteger;
+
+public class ModelCountTest {
+
+    private static Parser p = Parser.getInstance();
+
+    private static ParseTreeRoot tree(String input) {
+        return p.createParseTree(p.createTokensFromInput(input));
+    }
+
+    // Expression with every variable from v0 up to numVars - 1 joined by the connective
+    private static String chain(int numVars, char connective) {
+        StringBuilder input = new StringBuilder("v0");
+        for (int i = 1; i < numVars; i++) {
+            input.append(connective).append('v').append(i);
+        }
+        return input.toString();
+    }
+
+    @Test
+    public void KnownCountsTest() {
+        assertEquals(1, tree("P^Q").countModels());
+        assertEquals(3, tree("PVQ").countModels());
+        assertEquals(3, tree("P>Q").countModels());
+        assertEquals(2, tree("P=Q").countModels());
+        assertEquals(5, tree("(P^Q)VR").countModels());
+        assertEquals(0, tree("P^~P").countModels());
+        assertEquals(8, tree("PV~PVQVR").countModels());
+    }
+
+    @Test
+    public void PartialLastWordTest() {
+        // 2^3 rows only fill part of a word, the bits past the last row must not be counted
+        assertEquals(8, tree("~(P^~P)VQVR").countModels());
+        assertEquals(0, tree("P^~P^Q^R").countModels());
+    }
+
+    @Test
+    public void MatchesResultColumnTest() {
+        String input = "(v0=v1)>(v2^~v3)V(v4=v5)^(v6Vv7)=(v8>v9)V(v10^v11)";
+        ParseTreeRoot root = tree(input);
+        long expected = 0;
+        for (long word: tree(input).getResultColumn()) {
+            expected += Long.bitCount(word);
+        }
+        assertEquals(expected, root.countModels());
+        // Counted again from the cached result column
+        root.getResultColumn();
+        assertEquals(expected, root.countModels());
+    }
+
+    @Test
+    public void ParallelCountTest() {
+        String input = "(v0=v1)>(v2^~v3)V(v4=v5)^(v6Vv7)=(v8>v9)V(v10^v11)V(v12^v13^v14^v15^v16^v17)";
+        long serial = tree(input).countModels(1);
+        assertEquals(serial, tree(input).countModels(4));
+        assertEquals((1L << 20) - 1, tree(chain(20, 'V')).countModels(4));
+    }
+
+    @Test
+    public void BigIntegerCountTest() {
+        assertEquals(BigInteger.valueOf(3), tree("PVQ").countModelsAsBigInteger());
+        // 70 variables is past the number of rows a long can hold, only the assignment with every variable false
+        // makes the expression false
+        BigInteger expected = BigInteger.ONE.shiftLeft(70).subtract(BigInteger.ONE);
+        assertEquals(expected, tree(chain(70, 'V')).countModelsAsBigInteger());
+        assertEquals(BigInteger.ONE, tree(chain(70, '^')).countModelsAsBigInteger());
+    }
+
+    @Test(timeout = 10000)
+    public void PastSolverThresholdTest() {
+        // 40 variables would take hours to count row by row so these have to go through the Bdd
+        assertEquals((1L << 40) - 1, tree(chain(40, 'V')).countModels());
+        assertEquals(1, tree(chain(40, '^')).countModels(4));
+        BigInteger expected = BigInteger.ONE.shiftLeft(40).subtract(BigInteger.ONE);
+        assertEquals(expected, tree(chain(40, 'V')).countModelsAsBigInteger());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void PastMaxVariablesTest() {
+        tree(chain(70, 'V')).countModels();
+    }
+}
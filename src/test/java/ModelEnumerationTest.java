@@ -0,0 +1,88 @@
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.stream.Collectors;
+
+public class ModelEnumerationTest {
+
+    private static Parser p = Parser.getInstance();
+
+    private static ParseTreeRoot tree(String input) {
+        return p.createParseTree(p.createTokensFromInput(input));
+    }
+
+    // Satisfying rows found by going through every row of the result column
+    private static List<Long> expectedModels(String input) {
+        ParseTreeRoot root = tree(input);
+        List<Long> models = new ArrayList<>();
+        for (long row = 0; row < root.getNumRows(); row++) {
+            if (root.getResult(row)) models.add(row);
+        }
+        return models;
+    }
+
+    private static List<Long> models(ParseTreeRoot root, long offset, long limit) {
+        return root.models(offset, limit).boxed().collect(Collectors.toList());
+    }
+
+    @Test
+    public void ImplicationModelsTest() {
+        // P>Q is only false when P is true and Q is false, which is row 2
+        PrimitiveIterator.OfLong it = tree("P>Q").modelIterator();
+        assertEquals(0, it.nextLong());
+        assertEquals(1, it.nextLong());
+        assertEquals(3, it.nextLong());
+        assertFalse(it.hasNext());
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void ContradictionModelsTest() {
+        PrimitiveIterator.OfLong it = tree("P^~P").modelIterator();
+        assertFalse(it.hasNext());
+        it.nextLong();
+    }
+
+    @Test
+    public void MatchesResultColumnTest() {
+        // 12 variables so the models are spread over many words
+        String input = "(v0=v1)>(v2^~v3)V(v4=v5)^(v6Vv7)=(v8>v9)V(v10^v11)";
+        List<Long> expected = expectedModels(input);
+        assertEquals(expected, models(tree(input), 0, Long.MAX_VALUE));
+        // Gone through again from the cached result column
+        ParseTreeRoot root = tree(input);
+        root.getResultColumn();
+        assertEquals(expected, root.models().boxed().collect(Collectors.toList()));
+        assertEquals(root.countModels(), root.models().count());
+    }
+
+    @Test
+    public void OffsetAndLimitTest() {
+        String input = "(v0=v1)>(v2^~v3)V(v4=v5)^(v6Vv7)=(v8>v9)V(v10^v11)";
+        List<Long> expected = expectedModels(input);
+        ParseTreeRoot root = tree(input);
+        // Offsets inside a word, on a word boundary and past the last model
+        long[] offsets = {0, 1, 5, 63, 64, 100, expected.size() - 1, expected.size(), expected.size() + 10};
+        for (long offset: offsets) {
+            for (long limit: new long[] {0, 1, 7, 100, Long.MAX_VALUE}) {
+                int from = (int) Math.min(offset, expected.size());
+                int to = (int) Math.min(from + Math.min(limit, expected.size()), expected.size());
+                assertEquals(expected.subList(from, to), models(root, offset, limit));
+            }
+        }
+    }
+
+    @Test
+    public void PartialLastWordTest() {
+        // Every row is a model but the bits past the last of the 8 rows must not be
+        assertEquals(8, tree("PV~PVQVR").models().count());
+        assertEquals(7, tree("PV~PVQVR").models(0, 10).max().getAsLong());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void NegativeOffsetTest() {
+        tree("PVQ").models(-1, 10);
+    }
+}
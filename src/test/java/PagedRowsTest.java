@@ -0,0 +1,72 @@
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.List;
+
+public class PagedRowsTest {
+
+    private static Parser p = Parser.getInstance();
+
+    private static ParseTreeRoot tree(String input) {
+        return p.createParseTree(p.createTokensFromInput(input));
+    }
+
+    @Test
+    public void PagesMatchTruthTableTest() {
+        String input = "(P>Q)^(R=~S)V(P^S)";
+        List<List<String>> table = tree(input).getTruthTableAsList();
+        ParseTreeRoot root = tree(input);
+        assertEquals(table.get(0), root.getHeader());
+        for (int pageSize = 1; pageSize <= 20; pageSize++) {
+            for (long offset = 0; offset < root.getNumRows(); offset += pageSize) {
+                List<List<String>> page = root.getRows(offset, pageSize);
+                int to = (int) Math.min(offset + pageSize, root.getNumRows());
+                assertEquals(table.subList((int) offset + 1, to + 1), page);
+            }
+        }
+    }
+
+    @Test
+    public void PagesAcrossWordsTest() {
+        // 8 variables so pages cross the words of 64 rows
+        String input = "(v0=v1)>(v2^~v3)V(v4=v5)^(v6Vv7)";
+        List<List<String>> table = tree(input).getTruthTableAsList();
+        ParseTreeRoot root = tree(input);
+        assertEquals(table.subList(61, 161), root.getRows(60, 100));
+        // Read from the generated truth table
+        root.generateTruthTable();
+        assertEquals(table.subList(61, 161), root.getRows(60, 100));
+        assertEquals(table.get(0), root.getHeader());
+    }
+
+    @Test
+    public void PastLastRowTest() {
+        ParseTreeRoot root = tree("P^Q");
+        assertEquals(1, root.getRows(3, 100).size());
+        assertTrue(root.getRows(4, 100).isEmpty());
+        assertTrue(root.getRows(0, 0).isEmpty());
+    }
+
+    @Test
+    public void HugeTablePageTest() {
+        // 2^40 rows can't be generated but a single page can be
+        StringBuilder input = new StringBuilder("v0");
+        for (int i = 1; i < 40; i++) {
+            input.append('^').append('v').append(i);
+        }
+        ParseTreeRoot root = tree(input.toString());
+        List<List<String>> page = root.getRows(root.getNumRows() - 2, 100);
+        assertEquals(2, page.size());
+        List<String> last = page.get(1);
+        assertEquals(root.getHeader().size(), last.size());
+        // Only the last row has every variable true
+        for (String value: last) {
+            assertEquals("T", value);
+        }
+        assertEquals("F", page.get(0).get(last.size() - 1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void NegativeLimitTest() {
+        tree("PVQ").getRows(0, -1);
+    }
+}
@@ -0,0 +1,29 @@
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class ParallelGenerationTest {
+
+    private static Parser p = Parser.getInstance();
+
+    @Test
+    public void SameTableAsSequentialTest() {
+        String input = "(P^Q=~RVS>W)V(X>Y^~(P=U))^long_name";
+        ParseTreeRoot sequential = p.createParseTree(p.createTokensFromInput(input));
+        ParseTreeRoot parallel = p.createParseTree(p.createTokensFromInput(input));
+        parallel.generateTruthTable(4);
+        assertEquals(sequential.getTruthTableAsList(), parallel.getTruthTableAsList());
+        assertEquals(sequential.getTruthTableResults(), parallel.getTruthTableResults());
+    }
+
+    @Test
+    public void SameResultColumnAsSequentialTest() {
+        StringBuilder input = new StringBuilder("v0");
+        for (int i = 1; i < 22; i++) {
+            input.append((i % 3 == 0) ? "^v" : "=v").append(i);
+        }
+        ParseTreeRoot sequential = p.createParseTree(p.createTokensFromInput(input.toString()));
+        ParseTreeRoot parallel = p.createParseTree(p.createTokensFromInput(input.toString()));
+        assertArrayEquals(sequential.getResultColumn(), parallel.getResultColumn(4));
+    }
+
+}
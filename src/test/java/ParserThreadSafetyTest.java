@@ -0,0 +1,55 @@
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class ParserThreadSafetyTest {
+
+    private static Parser p = Parser.getInstance();
+
+    @Test
+    public void TokensNotModifiedTest() {
+        String input = "P^QVR";
+        ArrayList<Token> tokens = p.createTokensFromInput(input);
+        ArrayList<Token> copy = new ArrayList<>(tokens);
+        p.createParseTree(tokens);
+        assertEquals(copy, tokens);
+    }
+
+    @Test
+    public void ParseAllTest() {
+        List<String> inputs = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            inputs.add((i % 2 == 0) ? "P^Q" + ((i % 4 == 0) ? "VR" : "") : "P^^Q");
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<ParseResult> results;
+        try {
+            results = p.parseAll(inputs, executor);
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(inputs.size(), results.size());
+        for (int i = 0; i < results.size(); i++) {
+            ParseResult result = results.get(i);
+            assertEquals(inputs.get(i), result.getInputStr());
+            if (i % 2 == 0) {
+                assertTrue(result.isValid());
+                assertEquals((i % 4 == 0) ? 3 : 2, result.getTree().getNumVariables());
+            } else {
+                assertEquals(ValidExprStatus.ADJACENT_OPERATORS, result.getStatus());
+                assertNull(result.getTree());
+            }
+        }
+    }
+
+    @Test
+    public void ParseKeepsIdentifiersTest() {
+        ParseResult result = p.parse("alpha > beta");
+        assertEquals(Arrays.asList("alpha", "beta"), result.getTree().getVariables());
+    }
+
+}
@@ -0,0 +1,38 @@
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+public class RowStreamTest {
+
+    private static Parser p = Parser.getInstance();
+
+    @Test
+    public void MatchesTruthTableTest() {
+        String input = "P^Q=~RVS>W";
+        ParseTreeRoot root = p.createParseTree(p.createTokensFromInput(input));
+        List<List<String>> table = root.getTruthTableAsList();
+        ArrayList<Boolean> output = root.getTruthTableResults();
+        Iterator<TruthTableRow> rowIt = root.rowIterator();
+        for (int i = 1; i < table.size(); ++i) {
+            TruthTableRow row = rowIt.next();
+            assertEquals(i - 1, row.getRowNum());
+            assertEquals(table.get(i), row.toStringList());
+            assertEquals(output.get(i - 1), row.getResult());
+        }
+        assertFalse(rowIt.hasNext());
+    }
+
+    @Test
+    public void LargeTableStreamTest() {
+        StringBuilder input = new StringBuilder("v0");
+        for (int i = 1; i < 20; i++) {
+            input.append("Vv").append(i);
+        }
+        ParseTreeRoot root = p.createParseTree(p.createTokensFromInput(input.toString()));
+        // Every row apart from the first has at least one true variable
+        assertEquals((1L << 20) - 1, root.rows().filter(TruthTableRow::getResult).count());
+    }
+
+}
@@ -0,0 +1,128 @@
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.LinkedList;
+import java.util.Random;
+
+public class SatSolverTest {
+
+    private static Parser p = Parser.getInstance();
+
+    private static ParseTreeRoot tree(String input) {
+        return p.createParseTree(p.createTokensFromInput(input));
+    }
+
+    // Check the assignment really gives the expression the value
+    private static void assertWitness(ParseTreeRoot root, QueryResult result, boolean value) {
+        assertTrue(result.hasWitness());
+        assertEquals(value, root.evalTree(root.getRoot(), result.getModel(), new LinkedList<String>()));
+    }
+
+    private static String randomExpr(Random random, int numVars, int length) {
+        char[] connectives = {'^', 'V', '>', '='};
+        StringBuilder expr = new StringBuilder();
+        int open = 0;
+        for (int i = 0; i < length; i++) {
+            if (i > 0) expr.append(connectives[random.nextInt(connectives.length)]);
+            if (random.nextInt(3) == 0) expr.append('~');
+            if (random.nextInt(4) == 0) {
+                expr.append('(');
+                open++;
+            }
+            expr.append('v').append(random.nextInt(numVars));
+            if (open > 0 && random.nextInt(3) == 0) {
+                expr.append(')');
+                open--;
+            }
+        }
+        while (open-- > 0) expr.append(')');
+        return expr.toString();
+    }
+
+    @Test
+    public void MatchesEnumerationTest() {
+        Random random = new Random(7);
+        for (int i = 0; i < 300; i++) {
+            String input = randomExpr(random, 6, 2 + random.nextInt(14));
+            ParseTreeRoot root = tree(input);
+            boolean satisfiable = root.getCompiledExpr().findRow(true, 0) >= 0;
+            boolean tautology = root.getCompiledExpr().findRow(false, 0) < 0;
+            QueryResult sat = SatSolver.isSatisfiable(root);
+            QueryResult taut = SatSolver.isTautology(root);
+            assertEquals(input, satisfiable, sat.getAnswer());
+            assertEquals(input, tautology, taut.getAnswer());
+            assertEquals(input, !satisfiable, SatSolver.isContradiction(root).getAnswer());
+            if (satisfiable) assertWitness(root, sat, true);
+            if (!tautology) assertWitness(root, taut, false);
+        }
+    }
+
+    @Test
+    public void SharedSubExpressionTest() {
+        ParseTreeRoot root = tree("((P^Q)VR)^~((P^Q)VR)");
+        assertFalse(SatSolver.isSatisfiable(root).getAnswer());
+        assertTrue(SatSolver.isTautology(tree("((P^Q)VR)V~((P^Q)VR)")).getAnswer());
+    }
+
+    @Test
+    public void ManyVariablesTest() {
+        // v0 and a chain of implications forces every variable to be true
+        StringBuilder chain = new StringBuilder("v0");
+        for (int i = 0; i < 199; i++) {
+            chain.append("^(v").append(i).append(">v").append(i + 1).append(')');
+        }
+        ParseTreeRoot root = tree(chain.toString());
+        assertEquals(200, root.getNumVariables());
+        QueryResult result = root.isSatisfiable();
+        assertTrue(result.getAnswer());
+        assertWitness(root, result, true);
+        for (boolean value: result.getModel()) {
+            assertTrue(value);
+        }
+        assertFalse(tree(chain + "^~v199").isSatisfiable().getAnswer());
+        assertTrue(tree(chain + "^~v199").isContradiction().getAnswer());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void TooManyVariablesForTableTest() {
+        StringBuilder input = new StringBuilder("v0");
+        for (int i = 1; i < 70; i++) {
+            input.append("Vv").append(i);
+        }
+        tree(input.toString()).getResultColumn();
+    }
+
+    @Test
+    public void PigeonholeTest() {
+        // 4 pigeons can't each have their own hole out of 3
+        StringBuilder input = new StringBuilder();
+        for (int i = 1; i <= 4; i++) {
+            if (i > 1) input.append('^');
+            input.append("(p").append(i).append("h1Vp").append(i).append("h2Vp").append(i).append("h3)");
+        }
+        for (int h = 1; h <= 3; h++) {
+            for (int i = 1; i <= 4; i++) {
+                for (int j = i + 1; j <= 4; j++) {
+                    input.append("^~(p").append(i).append('h').append(h).append("^p").append(j).append('h')
+                            .append(h).append(')');
+                }
+            }
+        }
+        ParseTreeRoot root = tree(input.toString());
+        SatSolver solver = new SatSolver(CnfFormula.encode(root.getCompiledExpr(), true));
+        assertFalse(solver.solve());
+        assertTrue(solver.getConflicts() > 0);
+        // Same answer as going through all 4096 rows
+        assertEquals(-1, root.getCompiledExpr().findRow(true, 0));
+    }
+
+    @Test
+    public void TseitinEncodingTest() {
+        // One variable per connective, none for the NOT, and the shared P^Q only once
+        CnfFormula cnf = CnfFormula.encode(tree("~(P^Q)V(P^Q)").getCompiledExpr(), true);
+        assertEquals(2, cnf.getNumInputVars());
+        assertEquals(4, cnf.getNumVars());
+        // 3 clauses for each gate and the unit clause of the root
+        assertEquals(7, cnf.getNumClauses());
+        assertArrayEquals(new int[] {CnfFormula.literal(3, false)}, cnf.getClause(6));
+    }
+}
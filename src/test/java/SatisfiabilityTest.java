@@ -0,0 +1,82 @@
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.Map;
+
+public class SatisfiabilityTest {
+
+    private static Parser p = Parser.getInstance();
+
+    private static ParseTreeRoot tree(String input) {
+        return p.createParseTree(p.createTokensFromInput(input));
+    }
+
+    @Test
+    public void TautologyTest() {
+        QueryResult result = tree("PV~P").isTautology();
+        assertTrue(result.getAnswer());
+        assertFalse(result.hasWitness());
+        // Contrapositive
+        assertTrue(tree("(P>Q)=(~Q>~P)").isTautology().getAnswer());
+    }
+
+    @Test
+    public void NotTautologyTest() {
+        // Only false when P is true and Q is false
+        QueryResult result = tree("P>Q").isTautology();
+        assertFalse(result.getAnswer());
+        assertEquals(2, result.getAssignment());
+        Map<String, Boolean> values = result.getValues();
+        assertEquals(Boolean.TRUE, values.get("P"));
+        assertEquals(Boolean.FALSE, values.get("Q"));
+    }
+
+    @Test
+    public void ContradictionTest() {
+        ParseTreeRoot root = tree("P^~P");
+        assertTrue(root.isContradiction().getAnswer());
+        QueryResult result = root.isSatisfiable();
+        assertFalse(result.getAnswer());
+        assertEquals(-1, result.getAssignment());
+        assertTrue(result.getValues().isEmpty());
+    }
+
+    @Test
+    public void SatisfiableTest() {
+        QueryResult result = tree("P^Q^~R").isSatisfiable();
+        assertTrue(result.getAnswer());
+        assertEquals(6, result.getAssignment());
+        assertFalse(tree("P^Q^~R").isContradiction().getAnswer());
+    }
+
+    @Test
+    public void ManyVariablesTest() {
+        // Only the very last row is true so every word is searched
+        StringBuilder input = new StringBuilder("v0");
+        for (int i = 1; i < 20; i++) {
+            input.append("^v").append(i);
+        }
+        ParseTreeRoot root = tree(input.toString());
+        QueryResult result = root.isSatisfiable();
+        assertTrue(result.getAnswer());
+        assertEquals((1L << 20) - 1, result.getAssignment());
+        // Stops in the first word
+        assertEquals(0, root.isTautology().getAssignment());
+    }
+
+    @Test
+    public void UsesResultColumnTest() {
+        ParseTreeRoot root = tree("(PVQ)^~R");
+        root.getResultColumn();
+        assertEquals(2, root.isSatisfiable().getAssignment());
+        assertEquals(0, root.isTautology().getAssignment());
+    }
+
+    @Test
+    public void FindRowFromTest() {
+        CompiledExpr expr = tree("P=Q").getCompiledExpr();
+        assertEquals(0, expr.findRow(true, 0));
+        assertEquals(3, expr.findRow(true, 1));
+        assertEquals(-1, expr.findRow(true, 4));
+        assertEquals(2, expr.findRow(false, 2));
+    }
+}
@@ -0,0 +1,55 @@
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.ArrayList;
+import java.util.List;
+
+public class SharedSubExpressionTest {
+
+    private static Parser p = Parser.getInstance();
+
+    @Test
+    public void SharedNodeTest() {
+        String input = "(P^Q)V~(P^Q)";
+        ParseTreeRoot root = p.createParseTree(p.createTokensFromInput(input));
+        ParseTreeNode orNode = root.getRoot();
+        assertSame(orNode.getLeftNode(), orNode.getRightNode().getRightNode());
+        // P^Q only gets evaluated and added to the header once
+        assertEquals(3, root.getCompiledExpr().getNumOperators());
+        assertEquals(5, root.getTruthTableAsList().get(0).size());
+    }
+
+    @Test
+    public void SharedNodeResultsTest() {
+        String input = "((P=Q)^R)>((P=Q)^R)V~(P=Q)";
+        ParseTreeRoot root = p.createParseTree(p.createTokensFromInput(input));
+        CompiledExpr expr = root.getCompiledExpr();
+        MethodHandleExpr generated = MethodHandleExpr.forTree(root);
+        ArrayList<Boolean> output = root.getTruthTableResults();
+        for (int i = 0; i < output.size(); ++i) {
+            assertTrue(output.get(i));
+            assertTrue(expr.eval(i));
+            assertTrue(generated.eval(i));
+        }
+    }
+
+    @Test
+    public void EvalTreeMatchesHeaderTest() {
+        String input = "((P=Q)^R)>((P=Q)^R)V~(P=Q)";
+        ParseTreeRoot root = p.createParseTree(p.createTokensFromInput(input));
+        List<List<String>> table = root.getTruthTableAsList();
+        int numVars = root.getVariables().size();
+        for (int i = 1; i < table.size(); ++i) {
+            long row = i - 1;
+            boolean[] valMappings = new boolean[numVars];
+            ArrayList<String> currRow = new ArrayList<>();
+            for (int v = 0; v < numVars; v++) {
+                valMappings[v] = ((row >>> (numVars - 1 - v)) & 1) != 0;
+                currRow.add(valMappings[v] ? "T" : "F");
+            }
+            root.evalTree(root.getRoot(), valMappings, currRow);
+            // Each shared sub expression only has one column
+            assertEquals(table.get(i), currRow);
+        }
+    }
+
+}
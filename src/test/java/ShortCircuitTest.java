@@ -0,0 +1,81 @@
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.Random;
+
+public class ShortCircuitTest {
+
+    private static Parser p = Parser.getInstance();
+
+    private static ParseTreeRoot tree(String input) {
+        return p.createParseTree(p.createTokensFromInput(input));
+    }
+
+    private static void assertSameResults(String input) {
+        long[] expected = tree(input).getCompiledExpr().evalResults();
+        assertArrayEquals(input, expected, tree(input).getCompiledExpr().evalResultsShortCircuit());
+    }
+
+    @Test
+    public void ConnectivesTest() {
+        String[] inputs = {"P", "~P", "P^Q", "PVQ", "P>Q", "P=Q", "~P>Q", "P>~Q", "(P^Q^R)>P", "P^~P", "PV~P"};
+        for (String input: inputs) {
+            assertSameResults(input);
+        }
+    }
+
+    @Test
+    public void OperandOrderTest() {
+        // The cheaper operand is evaluated first so these evaluate the right hand side first
+        assertSameResults("((P=Q)V(R^~S)V(P>S))^T");
+        assertSameResults("((P=Q)V(R^~S)V(P>S))VT");
+        assertSameResults("((P=Q)V(R^~S)V(P>S))>T");
+        assertSameResults("((P=Q)V(R^~S)V(P>S))=T");
+    }
+
+    @Test
+    public void SharedSubExpressionTest() {
+        // The shared sub expression is first needed for only some rows and then for the rest
+        assertSameResults("(P^(Q=R))V(~P^(Q=R))");
+        assertSameResults("((Q=R)>P)^((Q=R)V~P)^(Q=R)");
+    }
+
+    @Test
+    public void RandomExpressionsTest() {
+        Random random = new Random(42);
+        char[] connectives = {'^', 'V', '>', '='};
+        for (int i = 0; i < 300; i++) {
+            int numVars = 1 + random.nextInt(10);
+            StringBuilder input = new StringBuilder();
+            int length = 1 + random.nextInt(40);
+            for (int j = 0; j < length; j++) {
+                if (j > 0) input.append(connectives[random.nextInt(connectives.length)]);
+                if (random.nextBoolean()) input.append('~');
+                if (random.nextInt(4) == 0) {
+                    input.append("(v").append(random.nextInt(numVars)).append(connectives[random.nextInt(4)])
+                            .append('v').append(random.nextInt(numVars)).append(')');
+                } else {
+                    input.append('v').append(random.nextInt(numVars));
+                }
+            }
+            assertSameResults(input.toString());
+        }
+    }
+
+    @Test
+    public void DeepExpressionTest() {
+        // Operators with the same precedence are right associative so the tree is as deep as the chain is long
+        StringBuilder input = new StringBuilder("v0");
+        for (int i = 1; i < 2000; i++) {
+            input.append(i % 2 == 0 ? 'V' : '^').append('v').append(i % 12);
+        }
+        assertSameResults(input.toString());
+    }
+
+    @Test
+    public void CachedResultColumnTest() {
+        ParseTreeRoot root = tree("(P>Q)^(R=~S)V(P^S)");
+        long[] column = root.getResultColumnShortCircuit();
+        assertArrayEquals(tree("(P>Q)^(R=~S)V(P^S)").getResultColumn(), column);
+        assertSame(column, root.getResultColumn());
+    }
+}
@@ -0,0 +1,98 @@
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TokenListTest {
+
+    private static Parser p = Parser.getInstance();
+
+    @Test
+    public void DifferentNamesNotEqualTest() {
+        TokenList first = p.createTokensFromInput("ab^cd");
+        TokenList second = p.createTokensFromInput("ef^gh");
+        assertFalse(first.equals(second));
+        assertFalse(second.equals(first));
+        assertNotEquals(first.hashCode(), second.hashCode());
+    }
+
+    @Test
+    public void SameNamesEqualTest() {
+        TokenList first = p.createTokensFromInput("ab ^ cd");
+        TokenList second = p.createTokensFromInput("ab^cd");
+        assertEquals(first, second);
+        assertEquals(first.hashCode(), second.hashCode());
+        assertEquals(first, new TokenList(first));
+    }
+
+    @Test
+    public void PlainListEqualityTest() {
+        List<Token> plain = new ArrayList<>(Arrays.asList(Token.VAR_P, Token.AND, Token.VAR_Q));
+        TokenList tokens = p.createTokensFromInput("P^Q");
+        assertEquals(plain, tokens);
+        assertEquals(tokens, plain);
+        assertEquals(plain.hashCode(), tokens.hashCode());
+        // A plain list can't hold the names of identifiers
+        assertFalse(p.createTokensFromInput("ab").equals(new ArrayList<>(Arrays.asList(Token.IDENT))));
+    }
+
+    @Test
+    public void RemoveKeepsNamesTest() {
+        TokenList tokens = p.createTokensFromInput("ab^cd^ef");
+        tokens.remove(2);
+        tokens.remove(1);
+        assertEquals("ab ^ ef", tokens.toNormalizedString());
+        assertEquals("ef", tokens.getIdentifier(1));
+    }
+
+    @Test
+    public void SetKeepsNamesTest() {
+        TokenList tokens = p.createTokensFromInput("ab^cd^ef");
+        tokens.set(2, Token.VAR_P);
+        assertEquals("ab ^ P ^ ef", tokens.toNormalizedString());
+        assertEquals("ef", tokens.getIdentifier(1));
+    }
+
+    @Test
+    public void RemoveIfKeepsNamesTest() {
+        TokenList tokens = p.createTokensFromInput("ab^P^cd");
+        tokens.removeIf(token -> token == Token.AND || token == Token.VAR_P);
+        assertEquals("ab cd", tokens.toNormalizedString());
+        tokens.removeIf(token -> token == Token.IDENT);
+        assertTrue(tokens.isEmpty());
+        assertEquals("", tokens.toNormalizedString());
+    }
+
+    @Test
+    public void AddAllKeepsNamesTest() {
+        TokenList tokens = p.createTokensFromInput("ab^cd");
+        tokens.addAll(1, p.createTokensFromInput("Vef"));
+        assertEquals("ab V ef ^ cd", tokens.toNormalizedString());
+        assertEquals("cd", tokens.getIdentifier(2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void AddIdentWithoutNameTest() {
+        p.createTokensFromInput("ab").add(Token.IDENT);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void SetIdentWithoutNameTest() {
+        p.createTokensFromInput("P^ab").set(0, Token.IDENT);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void SubListReadOnlyTest() {
+        p.createTokensFromInput("ab^cd").subList(0, 2).clear();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void SwapIdentUnsupportedTest() {
+        // Moving an identifier to where another token was would leave it without a name
+        Collections.swap(p.createTokensFromInput("ab^P"), 0, 2);
+    }
+}
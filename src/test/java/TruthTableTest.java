@@ -0,0 +1,41 @@
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.Arrays;
+
+public class TruthTableTest {
+
+    private static Parser p = Parser.getInstance();
+
+    @Test
+    public void ColumnAccessTest() {
+        String input = "P^QVR";
+        ParseTreeRoot root = p.createParseTree(p.createTokensFromInput(input));
+        TruthTable table = root.getTruthTable();
+        assertEquals(5, table.getNumColumns());
+        assertEquals(8, table.getNumRows());
+        assertEquals(Arrays.asList("P", "Q", "R", "P\u2227Q", "(P\u2227Q)\u2228R"), table.getHeader());
+        assertEquals(0b11000000L, table.column(3)[0]);
+        assertEquals(0b11101010L, root.column(4)[0]);
+        boolean answers[] = {false, true, false, true, false, true, true, true};
+        for (int i = 0; i < answers.length; ++i) {
+            assertEquals(answers[i], table.getResult(i));
+            assertEquals(answers[i], root.getResult(i));
+        }
+    }
+
+    @Test
+    public void ListViewTest() {
+        String input = "~P";
+        ParseTreeRoot root = p.createParseTree(p.createTokensFromInput(input));
+        assertEquals(Arrays.asList(Arrays.asList("P", "\u00ACP"), Arrays.asList("F", "T"), Arrays.asList("T", "F")),
+                root.getTruthTableAsList());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void ListViewTooLargeTest() {
+        // 31 variables has more rows than a list can hold along with the header. The columns are never read
+        TruthTable table = new TruthTable(Arrays.asList("P", "Q"), new long[2][1], 1L << 31);
+        table.asList();
+    }
+
+}
@@ -0,0 +1,33 @@
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+
+public class TruthTableWriterTest {
+
+    private static Parser p = Parser.getInstance();
+
+    @Test
+    public void WriterFormatTest() throws IOException {
+        String input = "P^Q";
+        ParseTreeRoot root = p.createParseTree(p.createTokensFromInput(input));
+        StringWriter writer = new StringWriter();
+        root.writeTruthTable(writer);
+        assertEquals("\nF F  F  \nF T  F  \nT F  F  \nT T  T  \n", writer.toString());
+    }
+
+    @Test
+    public void StreamMatchesWriterTest() throws IOException {
+        // Large enough for the rows to fill the buffer several times
+        String input = "(P^Q=~RVS>W)V(X>Y^~(P=U))^long_name";
+        ParseTreeRoot root = p.createParseTree(p.createTokensFromInput(input));
+        StringWriter writer = new StringWriter();
+        root.writeTruthTable(writer);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        root.writeTruthTable(out);
+        assertEquals(writer.toString(), out.toString("US-ASCII"));
+        assertEquals(1 + root.getNumRows(), writer.toString().split("\n", -1).length - 1);
+    }
+
+}